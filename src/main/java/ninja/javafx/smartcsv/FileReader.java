@@ -35,4 +35,13 @@ import java.io.IOException;
 public interface FileReader<E> {
     E getContent();
     void read(File filename) throws IOException;
+    default void setProgressMonitor(ProgressMonitor progressMonitor) {}
+
+    /**
+     * @return true if the read content has changes that are not saved in the file, for example
+     * because it was restored from a session
+     */
+    default boolean hasUnsavedChanges() {
+        return false;
+    }
 }
@@ -35,4 +35,5 @@ import java.io.IOException;
 public interface FileWriter<E> {
     void setContent(E content);
     void write(File filename) throws IOException;
+    default void setProgressMonitor(ProgressMonitor progressMonitor) {}
 }
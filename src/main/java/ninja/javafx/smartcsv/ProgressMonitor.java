@@ -0,0 +1,68 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv;
+
+/**
+ * receives the progress of a long running read or write and tells it when to stop
+ */
+public interface ProgressMonitor {
+
+    /**
+     * monitor for callers that are not interested in the progress
+     */
+    ProgressMonitor NONE = new ProgressMonitor() {
+        @Override
+        public void update(long rows, long bytes, double fraction) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * reports the work done so far
+     * @param rows the number of processed rows
+     * @param bytes the number of processed bytes
+     * @param fraction the processed part of the whole work between 0 and 1 or -1 if it is unknown
+     */
+    void update(long rows, long bytes, double fraction);
+
+    /**
+     * reports that everything is written and the file is synced to the disk, which can take a while
+     * for big files without any progress to report
+     */
+    default void syncing() {
+    }
+
+    /**
+     * checked regularly by the reader or writer, which stops as soon as possible if it returns true
+     * @return true if the work should be stopped
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,310 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.preferences.Preferences;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * byte level state machine that finds the record boundaries of csv data
+ * without parsing the fields. It knows the same quoting rules as the csv reader:
+ * a quote only opens a field at its start, a doubled quote inside a quoted field is an escaped quote
+ * and line breaks inside quoted fields do not end the record.
+ */
+public final class CSVBoundaryScanner {
+
+    public static final int FIELD_START = 0;
+    public static final int UNQUOTED = 1;
+    public static final int QUOTED = 2;
+    public static final int QUOTE_SEEN = 3;
+
+    private static final int STATES = 4;
+    private static final int CONVERGENCE_CHECK_INTERVAL = 4096;
+
+    private final int quote;
+    private final int delimiter;
+
+    public CSVBoundaryScanner(Preferences csvPreference) {
+        this.quote = csvPreference.quoteChar() == null ? -1 : csvPreference.quoteChar();
+        this.delimiter = csvPreference.delimiterChar();
+    }
+
+    /**
+     * calculates the state after the given byte
+     * @param state the state before the byte
+     * @param b the byte
+     * @return the state after the byte
+     */
+    public int next(int state, int b) {
+        switch (state) {
+            case QUOTED:
+                return b == quote ? QUOTE_SEEN : QUOTED;
+            case QUOTE_SEEN:
+                if (b == quote) return QUOTED;
+                return isSeparator(b) ? FIELD_START : UNQUOTED;
+            case FIELD_START:
+                if (b == quote) return QUOTED;
+                return isSeparator(b) ? FIELD_START : UNQUOTED;
+            default:
+                return isSeparator(b) ? FIELD_START : UNQUOTED;
+        }
+    }
+
+    /**
+     * checks if the byte ends a record when it is read in the given state
+     * @param state the state before the byte
+     * @param b the byte
+     * @return true if the record ends with this byte
+     */
+    public boolean isRecordEnd(int state, int b) {
+        return state != QUOTED && (b == '\n' || b == '\r');
+    }
+
+    /**
+     * runs the state machine over the range for every possible start state at once.
+     * The result maps each start state to the state at the end of the range,
+     * so ranges can be scanned in parallel and chained afterwards.
+     * @param data the csv data
+     * @param from first byte of the range
+     * @param to end of the range (exclusive)
+     * @return end state for every start state
+     */
+    public int[] transitions(MemorySegment data, long from, long to) {
+        int[] states = new int[STATES];
+        for (int state = 0; state < STATES; state++) {
+            states[state] = state;
+        }
+
+        long position = from;
+        while (position < to && !converged(states)) {
+            long end = Math.min(to, position + CONVERGENCE_CHECK_INTERVAL);
+            for (; position < end; position++) {
+                int b = data.get(JAVA_BYTE, position);
+                for (int state = 0; state < STATES; state++) {
+                    states[state] = next(states[state], b);
+                }
+            }
+        }
+
+        if (converged(states)) {
+            // all start states lead to the same state, so the rest of the range needs a single run
+            int state = states[0];
+            for (; position < to; position++) {
+                state = next(state, data.get(JAVA_BYTE, position));
+            }
+            Arrays.fill(states, state);
+        }
+        return states;
+    }
+
+    /**
+     * finds the start of the first record that begins at or behind the given position
+     * @param data the csv data
+     * @param from position to start the search
+     * @param to end of the data (exclusive)
+     * @param state the state at the given position
+     * @return the offset of the next record start or <code>to</code> if there is none
+     */
+    public long nextRecordStart(MemorySegment data, long from, long to, int state) {
+        if (state == FIELD_START && isRecordStart(data, from, to)) {
+            return from;
+        }
+        for (long position = from; position < to; position++) {
+            int b = data.get(JAVA_BYTE, position);
+            if (isRecordEnd(state, b)) {
+                if (b == '\r' && position + 1 < to && data.get(JAVA_BYTE, position + 1) == '\n') {
+                    position++;
+                }
+                return position + 1;
+            }
+            state = next(state, b);
+        }
+        return to;
+    }
+
+    /**
+     * cuts the data into chunks of roughly the chunk size that start and end at record boundaries.
+     * The state at each cut is found by scanning all nominal chunks in parallel for every
+     * possible start state and chaining the results afterwards.
+     * @param data the csv data
+     * @param chunkSize the nominal size of a chunk
+     * @param pool the pool for the parallel scan
+     * @return the chunks in file order
+     * @throws IOException if the scan fails
+     */
+    public List<Chunk> split(MemorySegment data, long chunkSize, ForkJoinPool pool) throws IOException {
+        long size = data.byteSize();
+        int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        long[] nominal = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            nominal[i] = size * i / count;
+        }
+
+        List<ForkJoinTask<int[]>> scans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long from = nominal[i];
+            long to = nominal[i + 1];
+            scans.add(pool.submit(() -> transitions(data, from, to)));
+        }
+
+        int[] entryState = new int[count];
+        int state = FIELD_START;
+        for (int i = 0; i < count; i++) {
+            entryState[i] = state;
+            state = ForkJoinTasks.join(scans.get(i))[state];
+        }
+
+        List<Chunk> chunks = new ArrayList<>(count);
+        long begin = 0;
+        for (int i = 1; i < count; i++) {
+            if (nominal[i] < begin) {
+                // the previous cut moved beyond this nominal boundary because of a huge quoted field
+                continue;
+            }
+            long end = nextRecordStart(data, nominal[i], size, entryState[i]);
+            if (end > begin) {
+                chunks.add(new Chunk(begin, end));
+                begin = end;
+            }
+        }
+        if (begin < size) {
+            chunks.add(new Chunk(begin, size));
+        }
+        return chunks;
+    }
+
+    /**
+     * finds the end of the last complete record. A carriage return at the end of the data does not end
+     * a record yet, because its line feed may still follow.
+     * @param data the csv data
+     * @param from the start of a record
+     * @param to end of the data (exclusive)
+     * @return the offset behind the last complete record or <code>from</code> if there is none
+     */
+    public long lastRecordEnd(MemorySegment data, long from, long to) {
+        int state = FIELD_START;
+        long end = from;
+        for (long position = from; position < to; position++) {
+            int b = data.get(JAVA_BYTE, position);
+            // a carriage return ends the record only if no line feed follows
+            boolean lineEnd = b == '\n' || (position + 1 < to && data.get(JAVA_BYTE, position + 1) != '\n');
+            if (isRecordEnd(state, b) && lineEnd) {
+                end = position + 1;
+            }
+            state = next(state, b);
+        }
+        return end;
+    }
+
+    /**
+     * @param data the csv data
+     * @param from first byte of the range
+     * @param to end of the range (exclusive)
+     * @return true if the range has only line breaks, which give no record
+     */
+    public static boolean isBlank(MemorySegment data, long from, long to) {
+        for (long position = from; position < to; position++) {
+            byte b = data.get(JAVA_BYTE, position);
+            if (b != '\n' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * collects the start offsets of all records inside of a chunk.
+     * Empty lines are skipped like the csv reader does.
+     * @param data the csv data
+     * @param chunk the chunk, it has to start at a record boundary
+     * @return the start offsets in file order
+     */
+    public long[] recordStarts(MemorySegment data, Chunk chunk) {
+        long[] starts = new long[1024];
+        int count = 0;
+        int state = FIELD_START;
+        long recordStart = chunk.begin();
+        for (long position = chunk.begin(); position < chunk.end(); position++) {
+            int b = data.get(JAVA_BYTE, position);
+            if (isRecordEnd(state, b)) {
+                if (position > recordStart) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = recordStart;
+                }
+                recordStart = position + 1;
+            }
+            state = next(state, b);
+        }
+        if (chunk.end() > recordStart) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = recordStart;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private boolean isSeparator(int b) {
+        return b == delimiter || b == '\n' || b == '\r';
+    }
+
+    private static boolean isRecordStart(MemorySegment data, long position, long to) {
+        if (position == 0) {
+            return true;
+        }
+        int previous = data.get(JAVA_BYTE, position - 1);
+        return previous == '\n' || (previous == '\r' && (position >= to || data.get(JAVA_BYTE, position) != '\n'));
+    }
+
+    private static boolean converged(int[] states) {
+        for (int i = 1; i < states.length; i++) {
+            if (states[i] != states[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * a part of the csv data that starts and ends at record boundaries
+     * @param begin offset of the first byte
+     * @param end offset behind the last byte
+     */
+    public record Chunk(long begin, long end) {}
+}
@@ -26,8 +26,12 @@
 
 package ninja.javafx.smartcsv.csv;
 
+import de.siegmar.fastcsv.reader.CsvReader;
+import ninja.javafx.smartcsv.ProgressMonitor;
 import ninja.javafx.smartcsv.preferences.Preferences;
 
+import java.util.concurrent.CancellationException;
+
 import static ninja.javafx.smartcsv.preferences.Preferences.defaultPreferences;
 
 /**
@@ -39,6 +43,8 @@ public class CSVConfigurable {
 
     protected String fileEncoding;
 
+    protected ProgressMonitor progressMonitor = ProgressMonitor.NONE;
+
     public CSVConfigurable() {
         csvPreference = defaultPreferences();
     }
@@ -47,8 +53,42 @@ public class CSVConfigurable {
         this.csvPreference = csvPreference;
     }
 
+    public Preferences getCsvPreference() {
+        return csvPreference;
+    }
+
     public void setFileEncoding(String fileEncoding) {
         this.fileEncoding = fileEncoding;
     }
 
+    public String getFileEncoding() {
+        return fileEncoding;
+    }
+
+    public void setProgressMonitor(ProgressMonitor progressMonitor) {
+        this.progressMonitor = progressMonitor != null ? progressMonitor : ProgressMonitor.NONE;
+    }
+
+    /**
+     * creates a csv reader for the delimiter and quote of the preferences
+     */
+    protected CsvReader.CsvReaderBuilder csvReaderBuilder() {
+        var builder = CsvReader.builder()
+                .fieldSeparator(csvPreference.delimiterChar());
+        if (csvPreference.quoteChar() != null) {
+            builder.quoteCharacter(csvPreference.quoteChar());
+        }
+        return builder;
+    }
+
+    /**
+     * stops the current read or write if the progress monitor asks for it
+     * @throws CancellationException if the work was cancelled
+     */
+    protected void checkCancelled() {
+        if (progressMonitor.isCancelled()) {
+            throw new CancellationException("cancelled");
+        }
+    }
+
 }
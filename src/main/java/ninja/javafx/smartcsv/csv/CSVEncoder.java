@@ -0,0 +1,360 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.CellStore;
+import ninja.javafx.smartcsv.fx.table.model.ValueDictionary;
+import ninja.javafx.smartcsv.preferences.Preferences;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * encodes the rows of a model as csv directly into a byte buffer that is written to a channel.
+ * The cells are taken in the order of the header, without a list or an array per row.
+ * Cells whose column keeps utf-8 bytes are copied as they are, the distinct values of
+ * dictionary encoded columns are encoded only once. All other cells are encoded from their text.
+ * Fields are quoted like fastcsv does it: always if the preferences have a quote character,
+ * otherwise only if they contain the delimiter, a quote or a line break, or start a record with
+ * the comment character.
+ */
+final class CSVEncoder {
+
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private static final char DEFAULT_QUOTE = '"';
+    private static final char COMMENT = '#';
+    private static final String DEFAULT_LINE_END = "\r\n";
+
+    private final WritableByteChannel channel;
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final String[] header;
+    private final char delimiter;
+    private final char quote;
+    private final boolean quoteAlways;
+    // every text can be encoded on its own, only false for charsets like utf-16 that start with a byte order mark
+    private final boolean stateless;
+    // the delimiter and the quote are single ascii bytes that can be searched in copied bytes
+    private final boolean copyBytes;
+    private final byte[] delimiterBytes;
+    private String lineEnd = DEFAULT_LINE_END;
+    private byte[] lineEndBytes;
+    private long length;
+
+    private CellStore store;
+    private int[] columns;
+    private byte[][][] dictionaryFields;
+
+    /**
+     * @param channel the channel the encoded bytes are written to
+     * @param charset the charset of the file
+     * @param preferences the delimiter and the quote character
+     * @param header the columns in the order they are written
+     */
+    CSVEncoder(WritableByteChannel channel, Charset charset, Preferences preferences, String[] header) {
+        this(channel, charset, preferences, header, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    /**
+     * @param channel the channel the encoded bytes are written to
+     * @param charset the charset of the file
+     * @param preferences the delimiter and the quote character
+     * @param header the columns in the order they are written
+     * @param buffer the buffer the bytes are encoded into before they are written to the channel
+     */
+    CSVEncoder(WritableByteChannel channel, Charset charset, Preferences preferences, String[] header,
+               ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.charset = charset;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.header = header;
+        this.delimiter = preferences.delimiterChar();
+        this.quote = preferences.quoteChar() != null ? preferences.quoteChar() : DEFAULT_QUOTE;
+        this.quoteAlways = preferences.quoteChar() != null;
+        this.stateless = isAsciiCompatible(charset);
+        this.copyBytes = stateless && delimiter < 0x80 && quote < 0x80;
+        this.delimiterBytes = stateless ? String.valueOf(delimiter).getBytes(charset) : null;
+        this.lineEndBytes = stateless ? lineEnd.getBytes(charset) : null;
+    }
+
+    /**
+     * @param lineEnd the line break behind each record, by default it is CRLF
+     */
+    void setLineEnd(String lineEnd) {
+        this.lineEnd = lineEnd;
+        this.lineEndBytes = stateless ? lineEnd.getBytes(charset) : null;
+    }
+
+    void writeByteOrderMark() throws IOException {
+        writeText("\uFEFF");
+    }
+
+    void writeHeader() throws IOException {
+        for (int position = 0; position < header.length; position++) {
+            if (position > 0) {
+                writeDelimiter();
+            }
+            writeText(escape(header[position], position == 0));
+        }
+        writeLineEnd();
+    }
+
+    /**
+     * @param row the row, its cells are written in the order of the header
+     */
+    void writeRow(CSVRow row) throws IOException {
+        if (row.getStore() != store) {
+            store = row.getStore();
+            columns = store.getColumnIndices(header);
+            dictionaryFields = new byte[header.length][][];
+        }
+        for (int position = 0; position < columns.length; position++) {
+            if (position > 0) {
+                writeDelimiter();
+            }
+            int column = columns[position];
+            if (column < 0) {
+                writeText(escape(null, position == 0));
+            } else if (!copyBytes || !writeStoredBytes(row, position, column)) {
+                writeText(escape(row.get(column), position == 0));
+            }
+        }
+        writeLineEnd();
+    }
+
+    /**
+     * copies a range of the original file behind the bytes that are written so far
+     * @param source the original file
+     * @param from the offset of the first byte
+     * @param to the offset behind the last byte
+     */
+    void copy(IndexedCSVFile source, long from, long to) throws IOException {
+        flush();
+        source.transferTo(from, to, channel);
+        length += to - from;
+    }
+
+    /**
+     * writes bytes that were encoded by another encoder behind the bytes that are written so far
+     * @param bytes the encoded bytes
+     */
+    void write(ByteBuffer bytes) throws IOException {
+        flush();
+        while (bytes.hasRemaining()) {
+            length += channel.write(bytes);
+        }
+    }
+
+    /**
+     * rows can only be encoded independently of each other if the charset has no state,
+     * otherwise only the first row would get the byte order mark of a charset like utf-16
+     * @return true if the rows can be encoded by separate encoders
+     */
+    boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * writes what is left in the buffer
+     */
+    void finish() throws IOException {
+        if (!stateless) {
+            encoder.encode(CharBuffer.allocate(0), buffer, true);
+            encoder.flush(buffer);
+        }
+        flush();
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    long getLength() {
+        return length + buffer.position();
+    }
+
+    private boolean writeStoredBytes(CSVRow row, int position, int column) throws IOException {
+        int code = row.getCode(column);
+        if (code >= 0) {
+            writeBytes(dictionaryField(position, column, code));
+            return true;
+        }
+        if (buffer.remaining() < buffer.capacity() / 2) {
+            flush();
+        }
+        int start = buffer.position();
+        if (quoteAlways) {
+            buffer.put((byte) quote);
+        }
+        int copied = row.copyUtf8(column, buffer);
+        if (copied < 0 || (quoteAlways && !buffer.hasRemaining()) ||
+                needsEncoding(buffer.position() - copied, copied, position == 0)) {
+            // no value, no stored bytes or a value that has to be escaped
+            buffer.position(start);
+            return false;
+        }
+        if (quoteAlways) {
+            buffer.put((byte) quote);
+        }
+        return true;
+    }
+
+    /**
+     * multi byte sequences of utf-8 never contain ascii bytes, so the delimiter and the quote are found byte by byte
+     */
+    private boolean needsEncoding(int from, int copied, boolean first) {
+        boolean utf8 = charset.equals(UTF_8);
+        for (int i = from; i < from + copied; i++) {
+            byte b = buffer.get(i);
+            if (b == quote || (b < 0 && !utf8)) {
+                return true;
+            }
+            if (!quoteAlways && (b == delimiter || b == '\n' || b == '\r' || (first && i == from && b == COMMENT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the escaped bytes of the distinct values of a column are kept while the rows of the store are written
+     */
+    private byte[] dictionaryField(int position, int column, int code) {
+        ValueDictionary dictionary = store.getDictionary(column);
+        byte[][] fields = dictionaryFields[position];
+        if (fields == null || code >= fields.length) {
+            fields = Arrays.copyOf(fields == null ? new byte[0][] : fields, Math.max(code + 1, dictionary.size()));
+            dictionaryFields[position] = fields;
+        }
+        if (fields[code] == null) {
+            fields[code] = escape(dictionary.get(code), position == 0).getBytes(charset);
+        }
+        return fields[code];
+    }
+
+    private String escape(String value, boolean first) {
+        if (value == null || value.isEmpty()) {
+            return quoteAlways ? "" + quote + quote : "";
+        }
+        boolean quoted = quoteAlways || (first && value.charAt(0) == COMMENT);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == quote) {
+                String doubled = "" + quote + quote;
+                return quote + value.replace(String.valueOf(quote), doubled) + quote;
+            }
+            if (c == delimiter || c == '\n' || c == '\r') {
+                quoted = true;
+            }
+        }
+        return quoted ? quote + value + quote : value;
+    }
+
+    private void writeDelimiter() throws IOException {
+        if (stateless) {
+            writeBytes(delimiterBytes);
+        } else {
+            writeText(String.valueOf(delimiter));
+        }
+    }
+
+    void writeLineEnd() throws IOException {
+        if (stateless) {
+            writeBytes(lineEndBytes);
+        } else {
+            writeText(lineEnd);
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        if (stateless) {
+            writeBytes(text.getBytes(charset));
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (encoder.encode(chars, buffer, false) == CoderResult.OVERFLOW) {
+            flush();
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (bytes.length - offset > buffer.remaining()) {
+            int count = buffer.remaining();
+            buffer.put(bytes, offset, count);
+            offset += count;
+            flush();
+        }
+        buffer.put(bytes, offset, bytes.length - offset);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            length += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * charsets that encode ascii as single bytes, like utf-8 and the iso-8859 family,
+     * and that do not start their output with a byte order mark
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        char[] ascii = new char[0x80];
+        for (int c = 0; c < ascii.length; c++) {
+            ascii[c] = (char) c;
+        }
+        byte[] bytes = new String(ascii).getBytes(charset);
+        if (bytes.length != ascii.length) {
+            return false;
+        }
+        for (int c = 0; c < bytes.length; c++) {
+            if (bytes[c] != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
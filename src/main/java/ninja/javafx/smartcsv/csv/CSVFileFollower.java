@@ -0,0 +1,260 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * follows a csv file that another program appends to. The directory of the file is watched
+ * and only the bytes behind the last complete record are parsed. The new records are handed
+ * over in batches, a record that is still being written waits for the next change.
+ */
+public final class CSVFileFollower extends CSVConfigurable implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(CSVFileFollower.class);
+
+    /**
+     * maximum number of records that are handed over at once
+     */
+    static final int BATCH_SIZE = 8192;
+
+    /**
+     * some file systems do not report changes, so the file is checked at least this often
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final int READ_SIZE = 8 * 1024 * 1024;
+
+    private final Path file;
+    private final Charset charset;
+    private final Consumer<List<String[]>> consumer;
+    private long offset;
+    private Thread follower;
+    private volatile boolean closed;
+
+    /**
+     * @param file the followed file
+     * @param offset the number of bytes of the file that are already read
+     * @param charset the charset of the file
+     * @param consumer receives the values of the appended records, it is called on the thread of the follower
+     */
+    public CSVFileFollower(File file, long offset, Charset charset, Consumer<List<String[]>> consumer) {
+        this.file = file.getAbsoluteFile().toPath();
+        this.offset = offset;
+        this.charset = charset;
+        this.consumer = consumer;
+    }
+
+    /**
+     * the record boundaries are found at byte level, so only the files that can be split into chunks can be followed
+     * @param file the file
+     * @param csvPreference the csv dialect
+     * @param charset the charset of the file
+     * @return true if the file can be followed
+     */
+    public static boolean supports(File file, Preferences csvPreference, Charset charset) {
+        return charset != null && !DecompressingInputStream.isCompressed(file) &&
+                ChunkedCSVParser.supports(csvPreference, charset);
+    }
+
+    /**
+     * sets the end of the last complete record as file length of the model. A record that was still being written
+     * when the file was read is read again completely when the file is followed, then it replaces the last row.
+     * @param model the model that was read from the data
+     * @param scanner the scanner for the csv dialect
+     * @param data the bytes of the file that were read
+     * @param recordStart the start of a record at or before the last complete record
+     */
+    static void setFileLength(CSVModel model, CSVBoundaryScanner scanner, MemorySegment data, long recordStart) {
+        long end = scanner.lastRecordEnd(data, recordStart, data.byteSize());
+        model.setFileLength(end);
+        model.setLastRowIncomplete(!CSVBoundaryScanner.isBlank(data, end, data.byteSize()));
+    }
+
+    /**
+     * sets the end of the last complete record as file length of a model that was read sequentially
+     * @param model the model that was read from the file
+     * @param csvPreference the csv dialect
+     * @param file the csv file
+     * @param length the number of bytes of the file that were read
+     */
+    static void setFileLength(CSVModel model, Preferences csvPreference, Path file, long length) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ);
+             var arena = Arena.ofConfined()) {
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length, arena);
+            setFileLength(model, new CSVBoundaryScanner(csvPreference), data, 0);
+        }
+    }
+
+    /**
+     * starts watching the file
+     * @throws IOException if the directory of the file can not be watched
+     */
+    public void start() throws IOException {
+        WatchService watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, ENTRY_MODIFY, ENTRY_CREATE);
+        follower = Thread.ofPlatform().daemon().name("follow " + file.getFileName()).start(() -> follow(watchService));
+    }
+
+    private void follow(WatchService watchService) {
+        try (watchService) {
+            while (!closed) {
+                readAppendedRecords();
+                WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // closed
+        } catch (IOException ex) {
+            // an interrupted read is the normal way to be closed
+            if (!closed) {
+                logger.error("stopped following " + file, ex);
+            }
+        }
+    }
+
+    /**
+     * reads the complete records that were appended since the last call
+     * @return the number of new records
+     * @throws IOException if the file can not be read or got shorter
+     */
+    int readAppendedRecords() throws IOException {
+        int records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IOException("The file " + file + " was truncated");
+            }
+            int readSize = READ_SIZE;
+            while (offset < size && !closed) {
+                int length = (int) Math.min(size - offset, readSize);
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                    // read until the buffer is full
+                }
+                int end = lastRecordEnd(buffer.array(), buffer.position());
+                if (end == 0) {
+                    if (length == size - offset) {
+                        // the last record is not complete yet
+                        break;
+                    }
+                    // a record that is bigger than the buffer
+                    readSize = (int) Math.min(Integer.MAX_VALUE - 8, 2L * readSize);
+                    continue;
+                }
+                records += parse(buffer.array(), end);
+                offset += end;
+                readSize = READ_SIZE;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return the number of bytes of the file that are read
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    private int lastRecordEnd(byte[] bytes, int length) {
+        CSVBoundaryScanner scanner = new CSVBoundaryScanner(csvPreference);
+        int state = CSVBoundaryScanner.FIELD_START;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            // a carriage return at the end may still get its line feed
+            if (scanner.isRecordEnd(state, b) && (b == '\n' || (i + 1 < length && bytes[i + 1] != '\n'))) {
+                end = i + 1;
+            }
+            state = scanner.next(state, b);
+        }
+        return end;
+    }
+
+    private int parse(byte[] bytes, int length) throws IOException {
+        int records = 0;
+        List<String[]> batch = new ArrayList<>();
+        try (var csv = csvReaderBuilder().ofCsvRecord(new String(bytes, 0, length, charset))) {
+            for (var record : csv) {
+                batch.add(record.getFields().toArray(String[]::new));
+                if (batch.size() == BATCH_SIZE) {
+                    consumer.accept(batch);
+                    records += batch.size();
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+            records += batch.size();
+        }
+        return records;
+    }
+
+    /**
+     * stops following the file
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (follower != null) {
+            follower.interrupt();
+            try {
+                follower.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
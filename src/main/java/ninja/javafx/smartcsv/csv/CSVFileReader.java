@@ -26,65 +26,306 @@
 
 package ninja.javafx.smartcsv.csv;
 
-import de.siegmar.fastcsv.reader.CsvReader;
-import de.siegmar.fastcsv.reader.NamedCsvRecord;
+import de.siegmar.fastcsv.reader.CsvParseException;
+import de.siegmar.fastcsv.reader.CsvRecord;
 import ninja.javafx.smartcsv.FileReader;
+import ninja.javafx.smartcsv.csv.CharsetDetector.DetectedCharset;
 import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.RowBuilder;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * reads the csv file and stores the values in csv model
  */
 public class CSVFileReader extends CSVConfigurable implements FileReader<CSVModel> {
 
+    /**
+     * files smaller than this are read sequentially, splitting them costs more than it saves
+     */
+    private static final long PARALLEL_LOAD_THRESHOLD = 32L * 1024 * 1024;
+
+    /**
+     * files bigger than this are not loaded completely, only an index of the row offsets is held in memory
+     */
+    private static final long PAGED_LOAD_THRESHOLD = 512L * 1024 * 1024;
+
+    /**
+     * number of rows between two progress updates and checks for cancellation
+     */
+    private static final int PROGRESS_INTERVAL = 8192;
+
     private CSVModel model;
+    private boolean parallelLoad = true;
+    private boolean pagedLoad = true;
+    private RowIndexCache rowIndexCache;
+    private SessionCache sessionCache;
+    private boolean unsavedChanges;
+    private boolean sessionRestored;
+    private StorageMode storageMode = StorageMode.HEAP;
+    private Consumer<CSVModel> firstRowsListener;
+    private Executor rowExecutor;
+
+    /**
+     * activates the parallel load of big files. The file is memory mapped,
+     * split into chunks and the chunks are parsed concurrently.
+     * @param parallelLoad true if big files should be loaded in parallel
+     */
+    public void setParallelLoad(boolean parallelLoad) {
+        this.parallelLoad = parallelLoad;
+    }
+
+    /**
+     * activates the paged load of huge files. The file is memory mapped and the rows
+     * are parsed page by page when they are shown or validated.
+     * @param pagedLoad true if huge files should be loaded page by page
+     */
+    public void setPagedLoad(boolean pagedLoad) {
+        this.pagedLoad = pagedLoad;
+    }
+
+    /**
+     * sets the cache for the row indices of huge files, so they are not scanned again if they are unchanged
+     * @param rowIndexCache the cache or null if the indices should not be stored
+     */
+    public void setRowIndexCache(RowIndexCache rowIndexCache) {
+        this.rowIndexCache = rowIndexCache;
+    }
+
+    /**
+     * sets the cache for the sessions of csv files, a file with a stored session is not parsed
+     * but restored from its snapshot, together with the changes that were not saved
+     * @param sessionCache the cache or null if sessions should not be restored
+     */
+    public void setSessionCache(SessionCache sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * sets where the cells of the next read files are kept. Off heap storage keeps big files
+     * out of the way of the garbage collector. The pages of files that are loaded page by page
+     * are always kept on the heap, they are dropped anyway when they are not used.
+     * @param storageMode the storage mode of the read models
+     */
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * activates the progressive load. The model is handed over as soon as the header and the first rows
+     * are read, the other rows are appended in batches by the executor while the file is read.
+     * Files that are loaded page by page are not loaded progressively, their rows are read on demand anyway.
+     * @param firstRowsListener receives the model with the first rows, or null to wait for the whole file
+     * @param rowExecutor appends the batches of rows on the thread that shows the model
+     */
+    public void setProgressiveLoad(Consumer<CSVModel> firstRowsListener, Executor rowExecutor) {
+        this.firstRowsListener = firstRowsListener;
+        this.rowExecutor = rowExecutor;
+    }
 
     @Override
     public void read(File file) throws IOException {
 
         System.out.println(csvPreference);
-        try (var csv = getNamedCsvReader(file)) {
-            model = new CSVModel();
+        // a cancelled or failed read must not keep the partially filled model
+        model = null;
+        unsavedChanges = false;
+        sessionRestored = false;
+        try {
+            if (sessionCache != null && restoreSession(file)) {
+                return;
+            }
+            if (DecompressingInputStream.isCompressed(file)) {
+                model = readCompressed(file);
+            } else {
+                model = readFile(file);
+            }
+        } catch (IOException | CsvParseException ex) {
+            // TODO perhaps a custom NinjaException that can properly identify and localize the exception message
+            // is this a file not found? is this a corrupt csv? etc
+            throw new IOException("Failed to read " + file + ": " + ex.getMessage(), ex);
+        }
+    }
 
-            // the header columns are used as the keys to the Map
-            var firstRow = csv.stream().findFirst();
+    private boolean restoreSession(File file) {
+        var session = sessionCache.load(file, csvPreference, Charset.forName(fileEncoding), storageMode);
+        if (session == null) {
+            return false;
+        }
+        model = session.model();
+        unsavedChanges = session.unsavedChanges();
+        sessionRestored = true;
+        progressMonitor.update(model.getNumberOfRows(), file.length(), 1);
+        return true;
+    }
 
-            if (firstRow.isEmpty()) {
-                return;
+    private CSVModel readFile(File file) throws IOException {
+        var detected = CharsetDetector.detect(file.toPath(), Charset.forName(fileEncoding));
+        Charset charset = detected.charset();
+        if (usePagedLoad(file, charset)) {
+            var indexedFile = IndexedCSVFile.open(file, csvReaderBuilder(), csvPreference,
+                    charset, Runtime.getRuntime().availableProcessors(), rowIndexCache,
+                    progressMonitor);
+            var pagedModel = new CSVModel(indexedFile);
+            pagedModel.setCharset(charset, detected.hasByteOrderMark());
+            pagedModel.setFileLength(indexedFile.getLastRecordEnd());
+            pagedModel.setLastRowIncomplete(indexedFile.isLastRecordIncomplete());
+            return pagedModel;
+        } else if (useParallelLoad(file, charset)) {
+            var parser = new ChunkedCSVParser(csvReaderBuilder(), csvPreference, charset,
+                    Runtime.getRuntime().availableProcessors());
+            parser.setStorageMode(storageMode);
+            parser.setProgressiveLoad(firstRowsListener, rowExecutor);
+            var parsedModel = parser.parse(file, progressMonitor);
+            parsedModel.setCharset(charset, detected.hasByteOrderMark());
+            return parsedModel;
+        }
+        try (var input = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            var sequentialModel = readSequential(input, input, file.length(), detected);
+            if (CSVFileFollower.supports(file, csvPreference, charset)) {
+                CSVFileFollower.setFileLength(sequentialModel, csvPreference, file.toPath(), input.getCount());
+            } else {
+                sequentialModel.setFileLength(input.getCount());
             }
+            return sequentialModel;
+        }
+    }
 
-            var header = firstRow.get().getHeader().toArray(String[]::new);
-            model.setHeader(header);
+    /**
+     * compressed files can not be split into chunks or paged, they are read sequentially
+     * while the decompression runs ahead on another thread
+     */
+    private CSVModel readCompressed(File file) throws IOException {
+        try (var compressed = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+             var input = new BufferedInputStream(new DecompressingInputStream(compressed, file.getName()),
+                     DecompressingInputStream.BLOCK_SIZE)) {
+            var detected = CharsetDetector.detect(input, Charset.forName(fileEncoding));
+            return readSequential(input, compressed, file.length(), detected);
+        }
+    }
 
-            csv.forEach(csvRow -> {
-                var row = model.addRow();
-                for (String column : header) {
-                    model.addValue(row, column, csvRow.getField(column));
-                }
-            });
+    /**
+     * @param data the content of the csv file
+     * @param counted the stream that counts the read bytes of the file for the progress
+     * @param size the size of the file
+     */
+    private CSVModel readSequential(InputStream data, CountingInputStream counted, long size,
+                                    DetectedCharset detected) throws IOException {
+        try (var csv = csvReaderBuilder().ofCsvRecord(textReader(data, detected))) {
+            var sequentialModel = new CSVModel(storageMode);
+            sequentialModel.setCharset(detected.charset(), detected.hasByteOrderMark());
 
-        } catch (IOException ex) {
-            // TODO perhaps a custom NinjaException that can properly identify and localize the exception message
-            // is this a file not found? is this a corrupt csv? etc
-            throw new IOException("Failed to read " + file + ": " + ex.getMessage(), ex);
+            var records = csv.iterator();
+            if (!records.hasNext()) {
+                return sequentialModel;
+            }
+
+            var header = records.next().getFields().toArray(String[]::new);
+            sequentialModel.setHeader(header);
+
+            var rowBuilder = sequentialModel.rowBuilder();
+            RowPublisher publisher = null;
+            long rows = 0;
+            while (records.hasNext()) {
+                if (publisher != null) {
+                    publisher.add(records.next().getFields().toArray(String[]::new));
+                } else {
+                    appendRecord(rowBuilder, records.next());
+                }
+                if (++rows == RowPublisher.FIRST_ROWS && firstRowsListener != null && records.hasNext()) {
+                    rowBuilder.flush();
+                    firstRowsListener.accept(sequentialModel);
+                    publisher = new RowPublisher(sequentialModel, rowExecutor, progressMonitor);
+                }
+                if (rows % PROGRESS_INTERVAL == 0) {
+                    if (rows == PROGRESS_INTERVAL && counted.getCount() > 0 && publisher == null) {
+                        // the first rows tell how many rows the whole file probably has
+                        rowBuilder.ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, size * rows / counted.getCount()));
+                    }
+                    checkCancelled();
+                    progressMonitor.update(rows, counted.getCount(), size > 0 ? (double) counted.getCount() / size : -1);
+                }
+            }
+            if (publisher != null) {
+                publisher.finish();
+            } else {
+                rowBuilder.flush();
+            }
+            progressMonitor.update(rows, size, 1);
+            return sequentialModel;
         }
     }
 
-    private CsvReader<NamedCsvRecord> getNamedCsvReader(File file) throws IOException {
-        var builder = CsvReader.builder()
-                .fieldSeparator(csvPreference.delimiterChar());
-        if (csvPreference.quoteChar() != null) {
-            builder.quoteCharacter(csvPreference.quoteChar());
+    /**
+     * skips the byte order mark, the decoders of the jdk already copy runs of ascii and
+     * iso-8859-1 bytes with vectorized intrinsics, so there is no own fast path for them
+     */
+    private static Reader textReader(InputStream input, DetectedCharset detected) throws IOException {
+        input.skipNBytes(detected.byteOrderMarkLength());
+        return new InputStreamReader(input, detected.charset());
+    }
+
+    /**
+     * copies the fields of the record by position, without a lookup by name or an array per row
+     */
+    static void appendRecord(RowBuilder rowBuilder, CsvRecord record) {
+        rowBuilder.startRow();
+        for (int position = 0, count = record.getFieldCount(); position < count; position++) {
+            rowBuilder.set(position, record.getField(position));
         }
+        rowBuilder.endRow();
+    }
+
+    private boolean usePagedLoad(File file, Charset charset) {
+        return pagedLoad &&
+                file.length() >= PAGED_LOAD_THRESHOLD &&
+                ChunkedCSVParser.supports(csvPreference, charset);
+    }
 
-        return builder.ofNamedCsvRecord(file.toPath(), Charset.forName(fileEncoding));
+    private boolean useParallelLoad(File file, Charset charset) {
+        return parallelLoad &&
+                file.length() >= PARALLEL_LOAD_THRESHOLD &&
+                Runtime.getRuntime().availableProcessors() > 1 &&
+                ChunkedCSVParser.supports(csvPreference, charset);
+    }
+
+    /**
+     * @param file the file
+     * @return true if the file is a csv file, a gzip file or a zip archive
+     */
+    public static boolean canRead(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".csv") || DecompressingInputStream.isCompressed(file);
     }
 
     public CSVModel getContent() {
         return model;
     }
 
+    @Override
+    public boolean hasUnsavedChanges() {
+        return unsavedChanges;
+    }
+
+    /**
+     * @return true if the last read model was restored from a session and not read from the file
+     */
+    public boolean isSessionRestored() {
+        return sessionRestored;
+    }
+
 }
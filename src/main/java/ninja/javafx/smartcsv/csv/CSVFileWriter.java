@@ -26,56 +26,377 @@
 
 package ninja.javafx.smartcsv.csv;
 
-import de.siegmar.fastcsv.writer.CsvWriter;
-import de.siegmar.fastcsv.writer.QuoteStrategies;
 import ninja.javafx.smartcsv.fx.table.model.CSVModel;
 import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-
-import static java.util.stream.Collectors.toList;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * filewriter for the csv
  */
 public class CSVFileWriter extends CSVConfigurable implements ninja.javafx.smartcsv.FileWriter<CSVModel> {
 
+    /**
+     * number of rows between two progress updates and checks for cancellation
+     */
+    private static final int PROGRESS_INTERVAL = 8192;
+
+    /**
+     * number of rows that are encoded together by one thread of the parallel write
+     */
+    static final int BLOCK_ROWS = 16384;
+
+    /**
+     * models with fewer rows are written by one thread, the pool costs more than it saves
+     */
+    private static final int PARALLEL_WRITE_THRESHOLD = 4 * BLOCK_ROWS;
+
+    private static final int BLOCK_BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger logger = LogManager.getLogger(CSVFileWriter.class);
+
     private CSVModel model;
+    private boolean keepBackup;
+    private boolean parallelWrite = true;
+
+    /**
+     * keeps the previous version of a saved file as &lt;name&gt;.bak next to it
+     * @param keepBackup true if the previous version should be kept
+     */
+    public void setKeepBackup(boolean keepBackup) {
+        this.keepBackup = keepBackup;
+    }
+
+    /**
+     * activates the parallel write of big models. Blocks of rows are encoded concurrently
+     * and written in their order, the file is the same as the one written by one thread.
+     * @param parallelWrite true if big models should be encoded in parallel
+     */
+    public void setParallelWrite(boolean parallelWrite) {
+        this.parallelWrite = parallelWrite;
+    }
 
     public void setContent(CSVModel model) {
         this.model = model;
     }
 
+    /**
+     * writes a temp file next to the target, syncs it to the disk and renames it over the target.
+     * The rows of a paged model are still read from the old file, and a cancelled write, a crash or
+     * a full disk must not leave a truncated file, so the target always has either the old or the new content.
+     * A symbolic link is kept and its file is replaced, other hard links of the target keep the old content.
+     */
     @Override
     public void write(File filename) throws IOException {
-        try (var writer = getCsvWriter(filename)){
-            writer.writeRecord(model.getHeader());
-            for(CSVRow row: model.getRows()) {
-                writer.writeRecord(convertMapFromModel(row));
+        if (filename.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            throw new IOException("Zip archives can only be read, please save " + filename.getName() + " as a csv file");
+        }
+        Path target = filename.getAbsoluteFile().toPath();
+        if (Files.exists(target)) {
+            target = target.toRealPath();
+        }
+        Path temp = createTempFile(target);
+        try {
+            long length = write(temp, filename.getName());
+            copyPermissions(target, temp);
+            if (keepBackup && Files.exists(target)) {
+                backup(target);
             }
+            replace(temp, target);
+            model.setFileLength(length);
+            model.setLastRowIncomplete(false);
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
 
-    private CsvWriter getCsvWriter(File filename) throws IOException {
-        var writer = CsvWriter.builder().fieldSeparator(csvPreference.delimiterChar());
-        if (csvPreference.quoteChar() != null) {
-            writer.quoteCharacter(csvPreference.quoteChar());
-            writer.quoteStrategy(QuoteStrategies.ALWAYS);
+    private long write(Path path, String name) throws IOException {
+        try (var file = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long length;
+            if (isCompressed(name)) {
+                // gzip files that were opened are written back compressed
+                var compressed = new GZIPOutputStream(Channels.newOutputStream(file), 64 * 1024);
+                length = writeContent(Channels.newChannel(compressed), name);
+                compressed.finish();
+            } else {
+                length = writeContent(file, name);
+            }
+            // the content has to be on the disk before the rename makes it the target
+            progressMonitor.syncing();
+            file.force(true);
+            return length;
         }
+    }
+
+    private long writeContent(WritableByteChannel channel, String name) throws IOException {
+        IndexedCSVFile source = deltaSource(name);
+        return source != null ? writeDelta(channel, source) : writeAll(channel);
+    }
+
+    private long writeAll(WritableByteChannel channel) throws IOException {
+        long totalRows = model.getRows().size();
+        var encoder = new CSVEncoder(channel, charset(), csvPreference, model.getHeader());
+        if (model.hasByteOrderMark()) {
+            encoder.writeByteOrderMark();
+        }
+        encoder.writeHeader();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        if (parallelWrite && parallelism > 1 && totalRows >= PARALLEL_WRITE_THRESHOLD && encoder.isStateless()) {
+            return writeParallel(encoder, parallelism);
+        }
+        long rows = 0;
+        for (CSVRow row : model.getRows()) {
+            encoder.writeRow(row);
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                checkCancelled();
+                progressMonitor.update(rows, encoder.getLength(), (double) rows / totalRows);
+            }
+        }
+        encoder.finish();
+        progressMonitor.update(rows, encoder.getLength(), 1);
+        return encoder.getLength();
+    }
+
+    /**
+     * encodes blocks of rows on a fork-join pool and writes them in the order of the rows.
+     * Only a limited number of blocks is in flight, so the memory stays bounded.
+     */
+    private long writeParallel(CSVEncoder encoder, int parallelism) throws IOException {
+        int totalRows = model.getRows().size();
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            Deque<ForkJoinTask<ByteBuffer>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            int rows = 0;
+            while (next < totalRows || !inFlight.isEmpty()) {
+                while (next < totalRows && inFlight.size() < parallelism * 2) {
+                    int from = next;
+                    int to = Math.min(totalRows, from + BLOCK_ROWS);
+                    inFlight.add(pool.submit(() -> encodeBlock(from, to)));
+                    next = to;
+                }
+                checkCancelled();
+                encoder.write(ForkJoinTasks.join(inFlight.poll()));
+                rows = Math.min(totalRows, rows + BLOCK_ROWS);
+                progressMonitor.update(rows, encoder.getLength(), (double) rows / totalRows);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        encoder.finish();
+        progressMonitor.update(totalRows, encoder.getLength(), 1);
+        return encoder.getLength();
+    }
 
-        return writer.build(filename.toPath(), Charset.forName(fileEncoding));
+    private ByteBuffer encodeBlock(int from, int to) throws IOException {
+        var block = new EncodedBlock();
+        var encoder = new CSVEncoder(block, charset(), csvPreference, model.getHeader(),
+                ByteBuffer.allocate(BLOCK_BUFFER_SIZE));
+        List<CSVRow> rows = model.getRows();
+        for (int index = from; index < to; index++) {
+            encoder.writeRow(rows.get(index));
+        }
+        encoder.finish();
+        return block.bytes();
     }
 
     /**
-     * transforms the column map from CSVValue to a simple Map<String,String>
-     * @param row the row to convert
-     * @return a simple map for the supercvs writer
+     * the rows that are unchanged since the file was indexed are copied from the original file in runs,
+     * only changed and added rows are encoded. Deleted rows end a run.
      */
-    private List<String> convertMapFromModel(CSVRow row) {
-        return row.getColumns().values().stream().map(v -> v.get().getValue())
-                .collect(toList());
+    private long writeDelta(WritableByteChannel channel, IndexedCSVFile source) throws IOException {
+        int totalRows = model.getRows().size();
+        var encoder = new CSVEncoder(channel, charset(), csvPreference, model.getHeader());
+        if (source.getLineEnd() != null) {
+            encoder.setLineEnd(source.getLineEnd());
+        }
+        // the header with its byte order mark
+        encoder.copy(source, 0, source.headerEnd());
+        boolean lineOpen = source.headerEnd() == source.getLength() && !source.endsWithLineEnd();
+
+        int runStart = -1;
+        int runEnd = -1;
+        for (int index = 0; index < totalRows; index++) {
+            int sourceRow = model.getUnchangedSourceRow(index);
+            if (sourceRow >= 0 && sourceRow == runEnd) {
+                runEnd++;
+            } else {
+                if (runStart >= 0) {
+                    lineOpen = copyRun(encoder, source, runStart, runEnd);
+                }
+                if (sourceRow >= 0) {
+                    runStart = sourceRow;
+                    runEnd = sourceRow + 1;
+                } else {
+                    runStart = -1;
+                    if (lineOpen) {
+                        encoder.writeLineEnd();
+                        lineOpen = false;
+                    }
+                    encoder.writeRow(model.getRows().get(index));
+                }
+            }
+            if ((index + 1) % PROGRESS_INTERVAL == 0) {
+                checkCancelled();
+                progressMonitor.update(index + 1, encoder.getLength(), (double) (index + 1) / totalRows);
+            }
+        }
+        if (runStart >= 0) {
+            copyRun(encoder, source, runStart, runEnd);
+        }
+        encoder.finish();
+        progressMonitor.update(totalRows, encoder.getLength(), 1);
+        return encoder.getLength();
+    }
+
+    /**
+     * @return true if the last row of the file was copied and it has no line break
+     */
+    private static boolean copyRun(CSVEncoder encoder, IndexedCSVFile source, int runStart, int runEnd) throws IOException {
+        long to = source.rowEnd(runEnd - 1);
+        encoder.copy(source, source.rowStart(runStart), to);
+        return to == source.getLength() && !source.endsWithLineEnd();
+    }
+
+    /**
+     * the unchanged rows of a paged model can be copied, if they are written with the same
+     * columns, dialect and charset they were read with
+     */
+    private IndexedCSVFile deltaSource(String name) {
+        if (model.getRowSource() instanceof IndexedCSVFile source &&
+                !isCompressed(name) &&
+                Arrays.equals(source.getHeader(), model.getHeader()) &&
+                source.getCsvPreference().equals(csvPreference) &&
+                source.getCharset().equals(charset())) {
+            return source;
+        }
+        return null;
+    }
+
+    private static boolean isCompressed(String name) {
+        return name.toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * a file that was read is written with its own charset and byte order mark,
+     * new files get the charset from the preferences
+     */
+    private Charset charset() {
+        return model.getCharset() != null ? model.getCharset() : Charset.forName(fileEncoding);
+    }
+
+    /**
+     * the previous version is linked as backup, which costs no copy of its content.
+     * Without hard links the previous version itself is moved aside, then there is no
+     * target for a moment.
+     */
+    private static void backup(Path target) throws IOException {
+        Path backup = target.resolveSibling(target.getFileName() + ".bak");
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (UnsupportedOperationException | IOException ex) {
+            logger.debug("cannot link {} to {}, moving it", backup, target, ex);
+            Files.move(target, backup);
+        }
+    }
+
+    /**
+     * renames the temp file over the target in one step if the file system supports it
+     * and syncs the directory, so the rename survives a crash too
+     */
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (var directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ex) {
+            // directories cannot be opened on every platform
+            logger.debug("cannot sync the directory of {}", target, ex);
+        }
+    }
+
+    /**
+     * creates the temp file next to the target. Unlike {@link Files#createTempFile} it is created with the default
+     * permissions of the user, so a new file gets the same permissions as any other new file.
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling(target.getFileName() + "." +
+                    Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), Character.MAX_RADIX) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException ex) {
+                logger.debug("temp file {} already exists", temp, ex);
+            }
+        }
+    }
+
+    /**
+     * the replaced file may have other permissions than a new file, so the temp file gets its permissions
+     */
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        if (Files.exists(source) && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        }
+    }
+
+    /**
+     * collects the encoded bytes of a block of rows in memory until it is its turn to be written
+     */
+    private static final class EncodedBlock implements WritableByteChannel {
+        private byte[] bytes = new byte[4 * BLOCK_BUFFER_SIZE];
+        private int size;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            if (size + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + count, bytes.length * 2));
+            }
+            source.get(bytes, size, count);
+            size += count;
+            return count;
+        }
+
+        ByteBuffer bytes() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
     }
 }
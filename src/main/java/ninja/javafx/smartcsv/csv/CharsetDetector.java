@@ -0,0 +1,245 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * guesses the charset of a file from its byte order mark or from a sample of its first bytes
+ */
+public final class CharsetDetector {
+
+    /**
+     * number of bytes at the start of the file that are looked at
+     */
+    static final int SAMPLE_SIZE = 64 * 1024;
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * the charset of a file and the length of the byte order mark in front of the first row
+     * @param charset the charset of the file
+     * @param byteOrderMarkLength number of bytes of the byte order mark or 0 if there is none
+     */
+    public record DetectedCharset(Charset charset, int byteOrderMarkLength) {
+
+        public boolean hasByteOrderMark() {
+            return byteOrderMarkLength > 0;
+        }
+    }
+
+    /**
+     * detects the charset of the file. A byte order mark wins, otherwise the first bytes are checked.
+     * Pure ascii keeps the configured charset, valid utf-8 with multibyte characters is utf-8.
+     * Everything else is read with the configured charset if it can decode the sample,
+     * or else as windows-1252 or iso-8859-1.
+     * @param file the file
+     * @param configured the charset from the preferences
+     * @return the detected charset
+     * @throws IOException if the file can not be read
+     */
+    public static DetectedCharset detect(Path file, Charset configured) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] sample = input.readNBytes(SAMPLE_SIZE);
+            return detect(sample, sample.length, sample.length == SAMPLE_SIZE, configured);
+        }
+    }
+
+    /**
+     * detects the charset from the first bytes of the stream, the stream is reset to its start afterwards
+     * @param input a stream that supports mark and reset
+     * @param configured the charset from the preferences
+     * @return the detected charset
+     * @throws IOException if the stream can not be read
+     */
+    public static DetectedCharset detect(InputStream input, Charset configured) throws IOException {
+        input.mark(SAMPLE_SIZE);
+        byte[] sample = input.readNBytes(SAMPLE_SIZE);
+        input.reset();
+        return detect(sample, sample.length, sample.length == SAMPLE_SIZE, configured);
+    }
+
+    /**
+     * @param truncated true if the sample is cut off and may end in the middle of a character
+     */
+    static DetectedCharset detect(byte[] sample, int length, boolean truncated, Charset configured) {
+        DetectedCharset byteOrderMark = byteOrderMark(sample, length);
+        if (byteOrderMark != null) {
+            return byteOrderMark;
+        }
+
+        Charset utf16 = utf16WithoutByteOrderMark(sample, length);
+        if (utf16 != null) {
+            return new DetectedCharset(utf16, 0);
+        }
+
+        switch (utf8(sample, length, truncated)) {
+            case ASCII:
+                return new DetectedCharset(isAsciiCompatible(configured) ? configured : StandardCharsets.UTF_8, 0);
+            case UTF_8:
+                return new DetectedCharset(StandardCharsets.UTF_8, 0);
+            default:
+                break;
+        }
+
+        if (!configured.equals(StandardCharsets.UTF_8) && canDecode(configured, sample, length, truncated)) {
+            return new DetectedCharset(configured, 0);
+        }
+        if (canDecode(WINDOWS_1252, sample, length, truncated)) {
+            return new DetectedCharset(WINDOWS_1252, 0);
+        }
+        return new DetectedCharset(StandardCharsets.ISO_8859_1, 0);
+    }
+
+    /**
+     * a byte order mark at the start of the file ends up in the first header name of the chunked
+     * and the paged load, which cut the file at byte level, so it is removed from there
+     * @param header the parsed header
+     * @return the header without byte order mark
+     */
+    static String[] withoutByteOrderMark(String[] header) {
+        if (header.length > 0 && header[0] != null && header[0].startsWith("\uFEFF")) {
+            header[0] = header[0].substring(1);
+        }
+        return header;
+    }
+
+    /**
+     * a charset where the ascii characters are single bytes with the same value
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) ||
+                charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        return new String(ascii, charset).equals(new String(ascii, StandardCharsets.US_ASCII));
+    }
+
+    private static DetectedCharset byteOrderMark(byte[] sample, int length) {
+        if (length >= 3 && (sample[0] & 0xff) == 0xEF && (sample[1] & 0xff) == 0xBB && (sample[2] & 0xff) == 0xBF) {
+            return new DetectedCharset(StandardCharsets.UTF_8, 3);
+        }
+        if (length >= 2 && (sample[0] & 0xff) == 0xFE && (sample[1] & 0xff) == 0xFF) {
+            return new DetectedCharset(StandardCharsets.UTF_16BE, 2);
+        }
+        if (length >= 2 && (sample[0] & 0xff) == 0xFF && (sample[1] & 0xff) == 0xFE) {
+            return new DetectedCharset(StandardCharsets.UTF_16LE, 2);
+        }
+        return null;
+    }
+
+    /**
+     * text in utf-16 without byte order mark has a zero byte in front of or after most of the ascii characters
+     */
+    private static Charset utf16WithoutByteOrderMark(byte[] sample, int length) {
+        int pairs = length / 2;
+        if (pairs < 2) {
+            return null;
+        }
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            if (sample[i] == 0) evenZeros++;
+            if (sample[i + 1] == 0) oddZeros++;
+        }
+        if (evenZeros > pairs * 0.3 && oddZeros < pairs * 0.05) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (oddZeros > pairs * 0.3 && evenZeros < pairs * 0.05) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private enum Utf8Check { ASCII, UTF_8, INVALID }
+
+    private static Utf8Check utf8(byte[] sample, int length, boolean truncated) {
+        boolean multibyte = false;
+        int i = 0;
+        while (i < length) {
+            int b = sample[i] & 0xff;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int continuations;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuations = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuations = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuations = 3;
+            } else {
+                return Utf8Check.INVALID;
+            }
+            int end = Math.min(i + continuations, length - 1);
+            for (int c = i + 1; c <= end; c++) {
+                if ((sample[c] & 0xC0) != 0x80) {
+                    return Utf8Check.INVALID;
+                }
+            }
+            if (end < i + continuations) {
+                // the sample ends inside of the character
+                return truncated ? Utf8Check.UTF_8 : Utf8Check.INVALID;
+            }
+            multibyte = true;
+            i += continuations + 1;
+        }
+        return multibyte ? Utf8Check.UTF_8 : Utf8Check.ASCII;
+    }
+
+    private static boolean canDecode(Charset charset, byte[] sample, int length, boolean truncated) {
+        var decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            // a truncated sample may end in the middle of a character, so the last bytes are left out
+            decoder.decode(ByteBuffer.wrap(sample, 0, truncated ? Math.max(0, length - 4) : length));
+            return true;
+        } catch (CharacterCodingException ex) {
+            return false;
+        }
+    }
+}
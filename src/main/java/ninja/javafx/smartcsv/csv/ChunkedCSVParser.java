@@ -0,0 +1,279 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import de.siegmar.fastcsv.reader.CsvRecord;
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.csv.CSVBoundaryScanner.Chunk;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.RowBuilder;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * parses a memory mapped csv file in parallel. The file is split into chunks at record boundaries,
+ * the chunks are parsed on a fork-join pool and the rows are added to the model in file order.
+ */
+final class ChunkedCSVParser {
+
+    private static final Logger logger = LogManager.getLogger(ChunkedCSVParser.class);
+
+    static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final CsvReader.CsvReaderBuilder readerBuilder;
+    private final CSVBoundaryScanner scanner;
+    private final Charset charset;
+    private final int parallelism;
+    private final long chunkSize;
+    private StorageMode storageMode = StorageMode.HEAP;
+    private Consumer<CSVModel> firstRowsListener;
+    private Executor rowExecutor;
+
+    ChunkedCSVParser(CsvReader.CsvReaderBuilder readerBuilder, Preferences csvPreference, Charset charset, int parallelism) {
+        this(readerBuilder, csvPreference, charset, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    ChunkedCSVParser(CsvReader.CsvReaderBuilder readerBuilder, Preferences csvPreference, Charset charset, int parallelism, long chunkSize) {
+        this.readerBuilder = readerBuilder;
+        this.scanner = new CSVBoundaryScanner(csvPreference);
+        this.charset = charset;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * sets where the model keeps the cells
+     * @param storageMode the storage mode of the model
+     */
+    void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * hands the model over after the first chunk, the other chunks are appended by the executor
+     * @param firstRowsListener receives the model with the rows of the first chunk, or null to wait for all chunks
+     * @param rowExecutor appends the batches of rows on the thread that shows the model
+     */
+    void setProgressiveLoad(Consumer<CSVModel> firstRowsListener, Executor rowExecutor) {
+        this.firstRowsListener = firstRowsListener;
+        this.rowExecutor = rowExecutor;
+    }
+
+    /**
+     * chunks can only be cut at byte level, if line breaks, quotes and delimiters are single bytes
+     * that never show up inside of other characters
+     * @param csvPreference the csv dialect
+     * @param charset the charset of the file
+     * @return true if the file can be split into chunks
+     */
+    static boolean supports(Preferences csvPreference, Charset charset) {
+        boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8) ||
+                (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f);
+        if (!asciiCompatible) {
+            return false;
+        }
+        String specialCharacters = "\r\n" + csvPreference.delimiterChar() +
+                (csvPreference.quoteChar() != null ? csvPreference.quoteChar().toString() : "");
+        for (char c : specialCharacters.toCharArray()) {
+            if (c > 127) {
+                return false;
+            }
+        }
+        return Arrays.equals(specialCharacters.getBytes(charset), specialCharacters.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * reads the whole file into a new model
+     * @param file the csv file
+     * @return the model with header and rows
+     * @throws IOException if the file cannot be read or parsed
+     */
+    CSVModel parse(File file) throws IOException {
+        return parse(file, ProgressMonitor.NONE);
+    }
+
+    /**
+     * reads the whole file into a new model and reports the progress after each chunk
+     * @param file the csv file
+     * @param progressMonitor the monitor for the progress
+     * @return the model with header and rows
+     * @throws IOException if the file cannot be read or parsed
+     * @throws CancellationException if the monitor cancelled the read
+     */
+    CSVModel parse(File file, ProgressMonitor progressMonitor) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), READ);
+             var arena = Arena.ofShared()) {
+            long size = channel.size();
+            if (size == 0) {
+                return new CSVModel(storageMode);
+            }
+
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            var pool = new ForkJoinPool(parallelism);
+            try {
+                List<Chunk> chunks = scanner.split(data, chunkSize, pool);
+                logger.info("parsing {} in {} chunks with {} threads", file, chunks.size(), parallelism);
+                return assemble(data, chunks, pool, progressMonitor);
+            } catch (ChunkParseException ex) {
+                throw sequentialError(file, ex);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * parses the chunks on the pool and adds the records to the model in file order.
+     * Only a limited number of chunks is in flight, so the memory stays bounded.
+     */
+    private CSVModel assemble(MemorySegment data, List<Chunk> chunks, ForkJoinPool pool,
+                              ProgressMonitor progressMonitor) throws IOException {
+        var model = new CSVModel(storageMode);
+        CSVFileFollower.setFileLength(model, scanner, data, chunks.get(chunks.size() - 1).begin());
+        Deque<ForkJoinTask<ParsedChunk>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        String[] header = null;
+        RowBuilder rowBuilder = null;
+        RowPublisher publisher = null;
+        long rows = 0;
+
+        while (next < chunks.size() || !inFlight.isEmpty()) {
+            while (next < chunks.size() && inFlight.size() < parallelism * 2) {
+                Chunk chunk = chunks.get(next++);
+                inFlight.add(pool.submit(() -> parseChunk(data, chunk)));
+            }
+
+            if (progressMonitor.isCancelled()) {
+                throw new CancellationException("parsing of the chunks was cancelled");
+            }
+            ParsedChunk parsed = ForkJoinTasks.join(inFlight.poll());
+            List<String[]> records = parsed.records();
+            int first = 0;
+            if (header == null) {
+                if (records.isEmpty()) {
+                    continue;
+                }
+                header = CharsetDetector.withoutByteOrderMark(records.get(0));
+                model.setHeader(header);
+                rowBuilder = model.rowBuilder();
+                // the first chunk tells how many rows the whole file probably has
+                rowBuilder.ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8,
+                        (double) records.size() * data.byteSize() / Math.max(1, parsed.end())));
+                first = 1;
+            } else if (!records.isEmpty() && records.get(0).length != header.length) {
+                throw new ChunkParseException("the first record of a chunk has " + records.get(0).length +
+                        " fields, but the header has " + header.length + " fields", null);
+            }
+
+            for (int i = first; i < records.size(); i++) {
+                if (publisher != null) {
+                    publisher.add(records.get(i));
+                } else {
+                    rowBuilder.addRow(records.get(i));
+                }
+            }
+            rows += records.size() - first;
+            if (publisher == null) {
+                rowBuilder.flush();
+                if (firstRowsListener != null && (next < chunks.size() || !inFlight.isEmpty())) {
+                    firstRowsListener.accept(model);
+                    publisher = new RowPublisher(model, rowExecutor, progressMonitor);
+                }
+            }
+            long processed = parsed.end();
+            progressMonitor.update(rows, processed, (double) processed / data.byteSize());
+        }
+        if (publisher != null) {
+            publisher.finish();
+        }
+        return model;
+    }
+
+    private ParsedChunk parseChunk(MemorySegment data, Chunk chunk) throws IOException {
+        byte[] bytes = data.asSlice(chunk.begin(), chunk.end() - chunk.begin()).toArray(JAVA_BYTE);
+        List<String[]> records = new ArrayList<>();
+        try (var csv = readerBuilder.ofCsvRecord(new String(bytes, charset))) {
+            for (CsvRecord record : csv) {
+                records.add(record.getFields().toArray(String[]::new));
+            }
+        } catch (RuntimeException ex) {
+            throw new ChunkParseException(ex.getMessage(), ex);
+        }
+        return new ParsedChunk(records, chunk.end());
+    }
+
+    /**
+     * the csv reader counts the lines of a chunk from its start, so a file that cannot be parsed
+     * is read again from the beginning. Then the error has the same message and line as the error
+     * of the sequential reader.
+     */
+    private IOException sequentialError(File file, ChunkParseException chunkError) {
+        try (var csv = readerBuilder.ofCsvRecord(file.toPath(), charset)) {
+            for (CsvRecord ignored : csv) {
+                // read until the record with the error
+            }
+        } catch (IOException | RuntimeException ex) {
+            return new IOException(ex.getMessage(), ex);
+        }
+        return chunkError;
+    }
+
+    private record ParsedChunk(List<String[]> records, long end) {}
+
+    /**
+     * a chunk that cannot be parsed, its message has no line number of the file
+     */
+    private static final class ChunkParseException extends IOException {
+        ChunkParseException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * decompresses a gzip file or the first csv file of a zip archive on a thread of its own,
+ * so the parser does not wait for the inflater. The decompressed blocks are handed over
+ * in a bounded queue, the decompression stops when the parser falls behind.
+ */
+final class DecompressingInputStream extends InputStream {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int QUEUE_CAPACITY = 16;
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final InputStream compressed;
+    private final boolean zip;
+    private final Thread decompressor;
+    private volatile IOException failure;
+    private byte[] block = new byte[0];
+    private int position;
+    private final byte[] single = new byte[1];
+
+    /**
+     * starts the decompression
+     * @param compressed the content of the compressed file
+     * @param name the name of the file, it tells if it is a zip archive or gzip file
+     */
+    DecompressingInputStream(InputStream compressed, String name) {
+        this.compressed = compressed;
+        this.zip = isZip(name);
+        this.decompressor = Thread.ofPlatform().daemon().name("decompress " + name).start(this::decompress);
+    }
+
+    /**
+     * @param file the file
+     * @return true if the file is a gzip file or a zip archive
+     */
+    static boolean isCompressed(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".gz") || isZip(name);
+    }
+
+    private static boolean isZip(String name) {
+        return name.toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == block.length) {
+            if (block == END) {
+                return -1;
+            }
+            try {
+                block = blocks.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for decompressed data");
+            }
+            position = 0;
+            if (block == END) {
+                if (failure != null) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                return -1;
+            }
+        }
+        int read = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, read);
+        position += read;
+        return read;
+    }
+
+    /**
+     * stops the decompression and waits until the thread has closed the compressed file
+     */
+    @Override
+    public void close() throws IOException {
+        decompressor.interrupt();
+        try {
+            decompressor.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while closing the compressed file");
+        }
+    }
+
+    private void decompress() {
+        try (compressed; InputStream input = zip ? firstCsvEntry(new ZipInputStream(compressed)) :
+                new GZIPInputStream(compressed, BLOCK_SIZE)) {
+            while (true) {
+                byte[] decompressed = input.readNBytes(BLOCK_SIZE);
+                if (decompressed.length > 0) {
+                    blocks.put(decompressed);
+                }
+                if (decompressed.length < BLOCK_SIZE) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        } catch (InterruptedException ex) {
+            // closed by the parser
+            return;
+        }
+        try {
+            blocks.put(END);
+        } catch (InterruptedException ex) {
+            // closed by the parser
+        }
+    }
+
+    /**
+     * a zip archive may hold several files, the first one ending with .csv is read
+     */
+    private static InputStream firstCsvEntry(ZipInputStream archive) throws IOException {
+        try {
+            ZipEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    return archive;
+                }
+            }
+        } catch (IOException ex) {
+            archive.close();
+            throw ex;
+        }
+        archive.close();
+        throw new IOException("The zip archive does not contain a csv file");
+    }
+}
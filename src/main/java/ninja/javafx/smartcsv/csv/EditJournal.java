@@ -0,0 +1,323 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.csv.RowIndexCache.Key;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.CellChangeListener;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * append only journal of the edits of a csv file, kept next to the file until the edits are saved.
+ * Every changed cell, added row and removed row is appended as a small record when it happens,
+ * so the edits are not lost if the application ends without saving, and they are replayed
+ * when the file is opened again. The records are handed to the operating system at once,
+ * but not forced to the disk, so an edit costs a write call and not a rewrite of the file.
+ * A journal is only replayed on the same state of the file it was written for, see {@link RowIndexCache},
+ * and only on a model that was or was not restored from a session just like when it was started.
+ */
+public final class EditJournal implements CellChangeListener, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(EditJournal.class);
+
+    private static final int MAGIC = 0x53434a4c;
+    private static final int VERSION = 1;
+    private static final byte VALUE_CHANGED = 1;
+    private static final byte VALUE_REMOVED = 2;
+    private static final byte ROW_ADDED = 3;
+    private static final byte ROW_REMOVED = 4;
+
+    private final File file;
+    private final Path journal;
+    private final Preferences csvPreference;
+    private final Charset charset;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(record);
+    private long replayFrom = -1;
+    private boolean failed;
+
+    private EditJournal(File file, Preferences csvPreference, Charset charset) throws IOException {
+        this.file = file;
+        this.journal = journalOf(file);
+        this.csvPreference = csvPreference;
+        this.charset = charset;
+        this.channel = FileChannel.open(journal, CREATE, READ, WRITE);
+    }
+
+    /**
+     * opens the journal of the file, the records of a journal that belongs to another state of the file are dropped
+     * @param file the csv file
+     * @param csvPreference the csv dialect the file was read with
+     * @param charset the charset the file was read with
+     * @param restoredSession true if the model of the file was restored from a session
+     * @return the journal, its records are replayed by {@link #replay(CSVModel)}
+     */
+    public static EditJournal open(File file, Preferences csvPreference, Charset charset, boolean restoredSession) throws IOException {
+        var editJournal = new EditJournal(file, csvPreference, charset);
+        try {
+            long headerEnd = editJournal.readHeader(restoredSession);
+            if (headerEnd < 0) {
+                editJournal.reset(restoredSession);
+            } else {
+                editJournal.replayFrom = headerEnd;
+            }
+            return editJournal;
+        } catch (IOException ex) {
+            editJournal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param file the csv file
+     * @return the journal next to the file
+     */
+    public static Path journalOf(File file) {
+        return file.toPath().resolveSibling(file.getName() + ".journal");
+    }
+
+    /**
+     * applies the records of the journal to the freshly opened model. Replaying stops at a record
+     * that was not written completely, new records are appended behind the last complete one.
+     * @param model the model of the file
+     * @return the number of replayed records
+     */
+    public int replay(CSVModel model) throws IOException {
+        if (replayFrom < 0) {
+            return 0;
+        }
+        int replayed = 0;
+        long size = channel.size();
+        long end = replayFrom;
+        channel.position(replayFrom);
+        var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type == ROW_ADDED) {
+                    model.addRow();
+                    end += Byte.BYTES;
+                } else if (type == ROW_REMOVED) {
+                    model.getRows().remove(in.readInt());
+                    end += Byte.BYTES + Integer.BYTES;
+                } else if (type == VALUE_CHANGED || type == VALUE_REMOVED) {
+                    int row = in.readInt();
+                    byte[] column = readBytes(in, size - end - Byte.BYTES - Integer.BYTES);
+                    byte[] value = type == VALUE_CHANGED ?
+                            readBytes(in, size - end - Byte.BYTES - 2 * Integer.BYTES - column.length) : null;
+                    CSVRow csvRow = model.getRows().get(row);
+                    int columnIndex = model.getColumnIndex(new String(column, UTF_8));
+                    if (columnIndex >= 0) {
+                        csvRow.set(columnIndex, value != null ? new String(value, UTF_8) : null);
+                    }
+                    end += Byte.BYTES + Integer.BYTES + Integer.BYTES + column.length +
+                            (value != null ? Integer.BYTES + value.length : 0);
+                } else {
+                    logger.warn("journal of {} has an unknown record at {}", file, end);
+                    break;
+                }
+                replayed++;
+            }
+        } catch (EOFException ex) {
+            // the end of the journal or a record that was not written completely
+        } catch (IndexOutOfBoundsException ex) {
+            logger.warn("journal of {} does not fit to the file at {}", file, end);
+        }
+        channel.truncate(end);
+        channel.position(end);
+        replayFrom = -1;
+        logger.info("replayed {} edits of {}", replayed, file);
+        return replayed;
+    }
+
+    @Override
+    public void valueChanged(CSVRow row, int column, String oldValue, String newValue) {
+        try {
+            out.writeByte(newValue != null ? VALUE_CHANGED : VALUE_REMOVED);
+            out.writeInt(row.getRowNumber());
+            writeBytes(row.getColumnName(column).getBytes(UTF_8));
+            if (newValue != null) {
+                writeBytes(newValue.getBytes(UTF_8));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        append();
+    }
+
+    /**
+     * records a row that was added at the end of the model
+     */
+    public void rowAdded() {
+        record.write(ROW_ADDED);
+        append();
+    }
+
+    /**
+     * records a removed row
+     * @param index the index the row had when it was removed
+     */
+    public void rowRemoved(int index) {
+        record.write(ROW_REMOVED);
+        try {
+            out.writeInt(index);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        append();
+    }
+
+    /**
+     * drops all records, because they are saved in the csv file or in a session now
+     * @param restoredSession true if the journal is replayed on a session from now on
+     */
+    public void reset(boolean restoredSession) throws IOException {
+        channel.truncate(0);
+        var header = new ByteArrayOutputStream();
+        var headerOut = new DataOutputStream(header);
+        headerOut.writeInt(MAGIC);
+        headerOut.writeInt(VERSION);
+        headerOut.writeBoolean(restoredSession);
+        var key = new ByteArrayOutputStream();
+        RowIndexCache.keyOf(file, csvPreference, charset).writeTo(new DataOutputStream(key));
+        headerOut.writeInt(key.size());
+        key.writeTo(headerOut);
+        write(ByteBuffer.wrap(header.toByteArray()), 0);
+        channel.position(header.size());
+        replayFrom = -1;
+        failed = false;
+    }
+
+    /**
+     * closes the journal and keeps its records for the next time the file is opened
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * closes the journal and removes it, because its edits are dropped
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journal);
+    }
+
+    /**
+     * @return the end of the header or -1 if the journal is empty or belongs to another state of the file
+     */
+    private long readHeader(boolean restoredSession) throws IOException {
+        if (channel.size() == 0) {
+            return -1;
+        }
+        channel.position(0);
+        var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readBoolean() != restoredSession) {
+                return -1;
+            }
+            byte[] key = readBytes(in, channel.size() - 2 * Integer.BYTES - 1);
+            Key stored = Key.readFrom(new DataInputStream(new ByteArrayInputStream(key)));
+            if (!stored.equals(RowIndexCache.keyOf(file, csvPreference, charset))) {
+                logger.info("journal of {} is outdated", file);
+                return -1;
+            }
+            return 3 * Integer.BYTES + 1 + key.length;
+        } catch (EOFException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * the journal is only a safety net, if it can not be written the edits go on without it
+     */
+    private void append() {
+        try {
+            if (!failed) {
+                write(ByteBuffer.wrap(record.toByteArray()), channel.position());
+                channel.position(channel.position() + record.size());
+            }
+        } catch (IOException ex) {
+            failed = true;
+            logger.warn("could not write journal of {}: {}", file, ex.getMessage());
+        } finally {
+            record.reset();
+        }
+    }
+
+    private void write(ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * a length that does not fit into the rest of the journal was not written completely or is damaged,
+     * the journal ends in front of it
+     * @param remaining the number of bytes of the journal behind the current position
+     */
+    private static byte[] readBytes(DataInputStream in, long remaining) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > remaining - Integer.BYTES) {
+            throw new EOFException("length " + length + " does not fit into the journal");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
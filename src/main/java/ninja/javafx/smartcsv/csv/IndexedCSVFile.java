@@ -0,0 +1,351 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import de.siegmar.fastcsv.reader.CsvRecord;
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.csv.CSVBoundaryScanner.Chunk;
+import ninja.javafx.smartcsv.fx.table.model.RowSource;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * memory mapped csv file that only keeps the start offsets of its rows on the heap.
+ * The rows are parsed when they are requested. The file stays open, so the bytes of unchanged
+ * rows can still be copied from it when the file was replaced by a save.
+ * Windows cannot replace a file while it is mapped, there the mapping is only used to build the index
+ * and the rows are read from the open file.
+ */
+final class IndexedCSVFile implements RowSource {
+
+    private static final Logger logger = LogManager.getLogger(IndexedCSVFile.class);
+
+    private static final boolean KEEP_MAPPING = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final File file;
+    private final CsvReader.CsvReaderBuilder readerBuilder;
+    private final Preferences csvPreference;
+    private final Charset charset;
+    private final FileChannel channel;
+    // null if the rows are read from the channel
+    private final MemorySegment data;
+    private final long length;
+    private final RowIndex index;
+    private final String[] header;
+    private final String lineEnd;
+    private final boolean endsWithLineEnd;
+    private final long lastRecordEnd;
+    private final boolean lastRecordIncomplete;
+
+    private IndexedCSVFile(File file, CsvReader.CsvReaderBuilder readerBuilder, Preferences csvPreference,
+                           Charset charset, FileChannel channel, MemorySegment data, boolean keepMapping,
+                           RowIndex index) throws IOException {
+        this.file = file;
+        this.readerBuilder = readerBuilder;
+        this.csvPreference = csvPreference;
+        this.charset = charset;
+        this.channel = channel;
+        this.data = keepMapping ? data : null;
+        this.length = data.byteSize();
+        this.index = index;
+        this.header = CharsetDetector.withoutByteOrderMark(parse(0, 1).get(0));
+        this.lineEnd = lineEnd(data, index.end(0));
+        this.endsWithLineEnd = length > 0 && isLineBreak(data.get(JAVA_BYTE, length - 1));
+        this.lastRecordEnd = new CSVBoundaryScanner(csvPreference)
+                .lastRecordEnd(data, index.start(index.size() - 1), length);
+        this.lastRecordIncomplete = !CSVBoundaryScanner.isBlank(data, lastRecordEnd, length);
+    }
+
+    /**
+     * maps the file and builds the row index in parallel
+     * @param file the csv file, it must not be empty
+     * @param readerBuilder the reader for the csv dialect
+     * @param csvPreference the csv dialect
+     * @param charset the charset of the file
+     * @param parallelism the number of threads to scan the file
+     * @param indexCache the cache of already built indices or null if the index should always be built
+     * @param progressMonitor the monitor for the progress of the scan
+     * @return the indexed file
+     * @throws IOException if the file cannot be mapped or scanned
+     * @throws CancellationException if the monitor cancelled the scan
+     */
+    static IndexedCSVFile open(File file, CsvReader.CsvReaderBuilder readerBuilder, Preferences csvPreference,
+                               Charset charset, int parallelism, RowIndexCache indexCache,
+                               ProgressMonitor progressMonitor) throws IOException {
+        return open(file, readerBuilder, csvPreference, charset, parallelism, indexCache, progressMonitor,
+                KEEP_MAPPING);
+    }
+
+    /**
+     * @param keepMapping true if the rows are read from the mapping, false if the mapping is released
+     *                    after the index is built and the rows are read from the file
+     */
+    static IndexedCSVFile open(File file, CsvReader.CsvReaderBuilder readerBuilder, Preferences csvPreference,
+                               Charset charset, int parallelism, RowIndexCache indexCache,
+                               ProgressMonitor progressMonitor, boolean keepMapping) throws IOException {
+        RowIndex index = indexCache != null ? indexCache.load(file, csvPreference, charset) : null;
+
+        var channel = FileChannel.open(file.toPath(), READ);
+        // the kept mapping stays valid as long as the model uses it, it is released with the model
+        var arena = keepMapping ? Arena.ofAuto() : Arena.ofShared();
+        try {
+            MemorySegment data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+
+            if (index == null || index.getEnd() != data.byteSize()) {
+                index = buildIndex(data, csvPreference, parallelism, progressMonitor);
+                if (index.size() > 0 && indexCache != null) {
+                    indexCache.store(file, csvPreference, charset, index);
+                }
+            }
+
+            if (index.size() == 0) {
+                throw new IOException("File " + file + " has no header");
+            }
+            progressMonitor.update(index.size() - 1, data.byteSize(), 1);
+            logger.info("indexed {} rows of {}, the index needs {} bytes", index.size() - 1, file, index.memoryUsage());
+            return new IndexedCSVFile(file, readerBuilder, csvPreference, charset, channel, data, keepMapping, index);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        } finally {
+            if (!keepMapping) {
+                arena.close();
+            }
+        }
+    }
+
+    private static RowIndex buildIndex(MemorySegment data, Preferences csvPreference, int parallelism,
+                                       ProgressMonitor progressMonitor) throws IOException {
+        var scanner = new CSVBoundaryScanner(csvPreference);
+        var pool = new ForkJoinPool(Math.max(1, parallelism));
+        var index = new RowIndex();
+        try {
+            List<Chunk> chunks = scanner.split(data, ChunkedCSVParser.DEFAULT_CHUNK_SIZE, pool);
+            List<ForkJoinTask<long[]>> starts = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                starts.add(pool.submit(() -> scanner.recordStarts(data, chunk)));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                if (progressMonitor.isCancelled()) {
+                    throw new CancellationException("scanning of the rows was cancelled");
+                }
+                index.addAll(ForkJoinTasks.join(starts.get(i)));
+                long processed = chunks.get(i).end();
+                progressMonitor.update(index.size(), processed, (double) processed / data.byteSize());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        index.setEnd(data.byteSize());
+        return index;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of bytes of the file that are indexed
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the offset behind the last complete record
+     */
+    long getLastRecordEnd() {
+        return lastRecordEnd;
+    }
+
+    /**
+     * @return true if the last record was still being written when the file was indexed
+     */
+    boolean isLastRecordIncomplete() {
+        return lastRecordIncomplete;
+    }
+
+    /**
+     * @return the csv dialect the rows were indexed with
+     */
+    Preferences getCsvPreference() {
+        return csvPreference;
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @param row the stored row
+     * @return the offset of the first byte of the row
+     */
+    long rowStart(int row) {
+        return index.start(row + 1);
+    }
+
+    /**
+     * @param row the stored row
+     * @return the offset behind the line break of the row
+     */
+    long rowEnd(int row) {
+        return index.end(row + 1);
+    }
+
+    /**
+     * @return the offset of the first row behind the header and its byte order mark
+     */
+    long headerEnd() {
+        return index.end(0);
+    }
+
+    /**
+     * the line break that ends the header, rows that are written into the file get the same one
+     * @return the line break or null if the file has only a header without line break
+     */
+    String getLineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * @return true if the last row ends with a line break
+     */
+    boolean endsWithLineEnd() {
+        return endsWithLineEnd;
+    }
+
+    private static String lineEnd(MemorySegment data, long headerEnd) {
+        if (headerEnd > 1 && data.get(JAVA_BYTE, headerEnd - 2) == '\r' && data.get(JAVA_BYTE, headerEnd - 1) == '\n') {
+            return "\r\n";
+        }
+        if (headerEnd > 0 && isLineBreak(data.get(JAVA_BYTE, headerEnd - 1))) {
+            return String.valueOf((char) data.get(JAVA_BYTE, headerEnd - 1));
+        }
+        return null;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * copies bytes of the file to the target without passing them through the heap
+     * @param from the offset of the first byte
+     * @param to the offset behind the last byte
+     * @param target the channel the bytes are written to
+     * @throws IOException if the bytes cannot be copied
+     */
+    void transferTo(long from, long to, WritableByteChannel target) throws IOException {
+        long position = from;
+        while (position < to) {
+            long transferred = channel.transferTo(position, to - position, target);
+            if (transferred <= 0) {
+                throw new IOException("Failed to copy the bytes " + position + " to " + to + " of " + file);
+            }
+            position += transferred;
+        }
+    }
+
+    @Override
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return index.size() - 1;
+    }
+
+    @Override
+    public List<String[]> read(int firstRow, int numberOfRows) throws IOException {
+        List<String[]> rows = parse(firstRow + 1, numberOfRows);
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).length != header.length) {
+                throw new IOException("Row " + (firstRow + i + 1) + " of " + file + " has " + rows.get(i).length +
+                        " fields, but the header has " + header.length + " fields");
+            }
+        }
+        return rows;
+    }
+
+    private List<String[]> parse(int firstRecord, int numberOfRecords) throws IOException {
+        if (numberOfRecords <= 0) {
+            return new ArrayList<>();
+        }
+        long begin = index.start(firstRecord);
+        long end = index.end(firstRecord + numberOfRecords - 1);
+        byte[] bytes = bytes(begin, end);
+
+        List<String[]> records = new ArrayList<>(numberOfRecords);
+        try (var csv = readerBuilder.ofCsvRecord(new String(bytes, charset))) {
+            for (CsvRecord record : csv) {
+                records.add(record.getFields().toArray(String[]::new));
+            }
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to parse the rows " + firstRecord + " to " +
+                    (firstRecord + numberOfRecords - 1) + " of " + file + ": " + ex.getMessage(), ex);
+        }
+        if (records.size() != numberOfRecords) {
+            throw new IOException("Expected " + numberOfRecords + " rows starting at row " + firstRecord +
+                    " of " + file + ", but found " + records.size());
+        }
+        return records;
+    }
+
+    private byte[] bytes(long begin, long end) throws IOException {
+        if (data != null) {
+            return data.asSlice(begin, end - begin).toArray(JAVA_BYTE);
+        }
+        var buffer = ByteBuffer.allocate(Math.toIntExact(end - begin));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, begin + buffer.position()) < 0) {
+                throw new IOException("Failed to read the bytes " + begin + " to " + end + " of " + file);
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * compact index of the byte offsets where the rows of a csv file start.
+ * The offsets are stored as int deltas to a long base per block of rows,
+ * so a row costs a little more than four bytes.
+ */
+public final class RowIndex {
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private long[] bases = new long[16];
+    private int[] deltas = new int[BLOCK_SIZE];
+    private int size;
+    private long end;
+
+    /**
+     * appends the start offset of the next row
+     * @param offset the start offset, must not be smaller than the previous one
+     */
+    public void add(long offset) {
+        int block = size >>> BLOCK_SHIFT;
+        if ((size & (BLOCK_SIZE - 1)) == 0) {
+            if (block == bases.length) {
+                bases = Arrays.copyOf(bases, block * 2);
+            }
+            bases[block] = offset;
+        }
+        long delta = offset - bases[block];
+        if (delta > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("rows of block " + block + " span more than 2 GB");
+        }
+        if (size == deltas.length) {
+            deltas = Arrays.copyOf(deltas, size + (size >> 1));
+        }
+        deltas[size++] = (int) delta;
+        end = Math.max(end, offset);
+    }
+
+    /**
+     * appends the start offsets of the next rows
+     * @param offsets the start offsets in ascending order
+     */
+    public void addAll(long[] offsets) {
+        for (long offset : offsets) {
+            add(offset);
+        }
+    }
+
+    /**
+     * returns the number of rows in the index
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * returns the offset of the first byte of the row
+     * @param row the row
+     * @return the start offset of the row
+     */
+    public long start(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " is not in the index of " + size + " rows");
+        }
+        return bases[row >>> BLOCK_SHIFT] + deltas[row];
+    }
+
+    /**
+     * returns the offset behind the last byte of the row
+     * @param row the row
+     * @return the end offset of the row
+     */
+    public long end(int row) {
+        return row + 1 < size ? start(row + 1) : end;
+    }
+
+    /**
+     * sets the offset behind the last byte of the last row
+     * @param end the end of the data
+     */
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    /**
+     * returns the offset behind the last byte of the last row
+     * @return the end of the data
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * returns the heap size of the index
+     * @return size in bytes
+     */
+    public long memoryUsage() {
+        return (long) bases.length * Long.BYTES + (long) deltas.length * Integer.BYTES;
+    }
+
+    /**
+     * writes the index in a compact binary form
+     * @param out the target
+     * @throws IOException if the index cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(end);
+        int blocks = (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        for (int block = 0; block < blocks; block++) {
+            out.writeLong(bases[block]);
+        }
+        for (int row = 0; row < size; row++) {
+            out.writeInt(deltas[row]);
+        }
+    }
+
+    /**
+     * reads an index written by {@link #writeTo(DataOutput)}
+     * @param in the source
+     * @return the index
+     * @throws IOException if the index cannot be read
+     */
+    public static RowIndex readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("invalid row index size " + size);
+        }
+        RowIndex index = new RowIndex();
+        index.size = size;
+        index.end = in.readLong();
+        int blocks = (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        index.bases = new long[Math.max(16, blocks)];
+        for (int block = 0; block < blocks; block++) {
+            index.bases[block] = in.readLong();
+        }
+        index.deltas = new int[Math.max(BLOCK_SIZE, size)];
+        for (int row = 0; row < size; row++) {
+            index.deltas[row] = in.readInt();
+        }
+        return index;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * stores the row index of big csv files next to the other settings, so an unchanged file
+ * does not need to be scanned again when it is opened the next time.
+ * An index is only used, if path, size, modification time, a hash of samples of the content
+ * and the csv dialect are the same as when it was stored.
+ */
+public final class RowIndexCache {
+
+    private static final Logger logger = LogManager.getLogger(RowIndexCache.class);
+
+    private static final int MAGIC = 0x53435849;
+    private static final int VERSION = 1;
+    private static final int SAMPLES = 16;
+    private static final int SAMPLE_SIZE = 4096;
+    private static final int MAX_ENTRIES = 32;
+
+    private final File directory;
+
+    /**
+     * @param directory the directory for the index files, it is created when the first index is stored
+     */
+    public RowIndexCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * returns the stored index of the file
+     * @param file the csv file
+     * @param csvPreference the csv dialect the file is read with
+     * @param charset the charset the file is read with
+     * @return the index or null if there is no index for the current state of the file
+     */
+    public RowIndex load(File file, Preferences csvPreference, Charset charset) {
+        File entry = entryOf(file);
+        if (!entry.exists()) {
+            return null;
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            Key stored = Key.readFrom(in);
+            if (!stored.equals(keyOf(file, csvPreference, charset))) {
+                logger.info("row index of {} is outdated", file);
+                return null;
+            }
+            RowIndex index = RowIndex.readFrom(in);
+            logger.info("loaded row index of {} with {} rows", file, index.size());
+            return index;
+        } catch (IOException ex) {
+            logger.warn("could not read row index of {}: {}", file, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * stores the index of the file, failures are only logged because the index can always be rebuilt
+     * @param file the csv file
+     * @param csvPreference the csv dialect the index was built with
+     * @param charset the charset the index was built with
+     * @param index the index of the file
+     */
+    public void store(File file, Preferences csvPreference, Charset charset, RowIndex index) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            Key key = keyOf(file, csvPreference, charset);
+            temp = Files.createTempFile(directory.toPath(), "index", ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                key.writeTo(out);
+                index.writeTo(out);
+            }
+            Files.move(temp, entryOf(file).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            removeOldEntries();
+        } catch (IOException ex) {
+            logger.warn("could not store row index of {}: {}", file, ex.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    logger.warn("could not delete {}", temp);
+                }
+            }
+        }
+    }
+
+    private File entryOf(File file) {
+        return new File(directory, HexFormat.of().formatHex(digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8))) + ".idx");
+    }
+
+    private void removeOldEntries() throws IOException {
+        try (Stream<Path> entries = Files.list(directory.toPath())) {
+            Path[] outdated = entries.filter(path -> path.getFileName().toString().endsWith(".idx"))
+                    .sorted(Comparator.comparing((Path path) -> path.toFile().lastModified()).reversed())
+                    .skip(MAX_ENTRIES)
+                    .toArray(Path[]::new);
+            for (Path path : outdated) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static Key keyOf(File file, Preferences csvPreference, Charset charset) throws IOException {
+        return new Key(file.getAbsolutePath(), file.length(), file.lastModified(), sampleHash(file),
+                csvPreference.quoteChar() != null ? csvPreference.quoteChar() : -1, csvPreference.delimiterChar(),
+                csvPreference.endOfLineSymbols(), csvPreference.ignoreEmptyLines(), charset.name());
+    }
+
+    /**
+     * hashes evenly distributed samples of the content, it detects changes that keep size and modification time
+     */
+    private static byte[] sampleHash(File file) throws IOException {
+        MessageDigest digest = sha256();
+        try (var channel = FileChannel.open(file.toPath(), READ)) {
+            long size = channel.size();
+            ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+            for (int i = 0; i < SAMPLES; i++) {
+                long position = Math.max(0, (size - SAMPLE_SIZE) * i / (SAMPLES - 1));
+                sample.clear();
+                int read;
+                do {
+                    read = channel.read(sample, position + sample.position());
+                } while (read > 0 && sample.hasRemaining());
+                sample.flip();
+                digest.update(sample);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    record Key(String path, long size, long lastModified, byte[] sampleHash,
+                       int quoteChar, char delimiterChar, String endOfLineSymbols, boolean ignoreEmptyLines,
+                       String charset) {
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(lastModified);
+            out.writeInt(sampleHash.length);
+            out.write(sampleHash);
+            out.writeInt(quoteChar);
+            out.writeChar(delimiterChar);
+            out.writeUTF(endOfLineSymbols);
+            out.writeBoolean(ignoreEmptyLines);
+            out.writeUTF(charset);
+        }
+
+        static Key readFrom(DataInputStream in) throws IOException {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            byte[] sampleHash = new byte[in.readInt()];
+            in.readFully(sampleHash);
+            return new Key(path, size, lastModified, sampleHash, in.readInt(), in.readChar(), in.readUTF(),
+                    in.readBoolean(), in.readUTF());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key &&
+                    path.equals(key.path) &&
+                    size == key.size &&
+                    lastModified == key.lastModified &&
+                    Arrays.equals(sampleHash, key.sampleHash) &&
+                    quoteChar == key.quoteChar &&
+                    delimiterChar == key.delimiterChar &&
+                    endOfLineSymbols.equals(key.endOfLineSymbols) &&
+                    ignoreEmptyLines == key.ignoreEmptyLines &&
+                    charset.equals(key.charset);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Arrays.hashCode(sampleHash);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hands the rows of a model that is already shown over to the thread that shows it.
+ * The rows are appended in batches that are small enough for a single pulse of the ui,
+ * and the reader waits if the ui falls behind.
+ */
+final class RowPublisher {
+
+    /**
+     * number of rows that are shown before the rest of the file is read
+     */
+    static final int FIRST_ROWS = 1000;
+
+    /**
+     * number of rows appended at once
+     */
+    static final int BATCH_SIZE = 2048;
+
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    private final CSVModel model;
+    private final Executor executor;
+    private final ProgressMonitor progressMonitor;
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+    private List<String[]> batch = new ArrayList<>(BATCH_SIZE);
+
+    /**
+     * @param model the shown model
+     * @param executor appends the batches on the thread that shows the model
+     * @param progressMonitor the monitor that may cancel the read while it waits for the ui
+     */
+    RowPublisher(CSVModel model, Executor executor, ProgressMonitor progressMonitor) {
+        this.model = model;
+        this.executor = executor;
+        this.progressMonitor = progressMonitor;
+    }
+
+    /**
+     * adds a row to the current batch
+     * @param values the values in the order of the header
+     */
+    void add(String[] values) {
+        batch.add(values);
+        if (batch.size() == BATCH_SIZE) {
+            publish();
+        }
+    }
+
+    /**
+     * appends the last batch and waits until all batches are in the model
+     */
+    void finish() {
+        if (!batch.isEmpty()) {
+            publish();
+        }
+        acquire(MAX_PENDING_BATCHES);
+        pendingBatches.release(MAX_PENDING_BATCHES);
+    }
+
+    private void publish() {
+        List<String[]> rows = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        acquire(1);
+        executor.execute(() -> {
+            try {
+                model.appendRows(rows);
+            } finally {
+                pendingBatches.release();
+            }
+        });
+    }
+
+    private void acquire(int permits) {
+        try {
+            while (!pendingBatches.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+                if (progressMonitor.isCancelled()) {
+                    throw new CancellationException("cancelled");
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted");
+        }
+    }
+}
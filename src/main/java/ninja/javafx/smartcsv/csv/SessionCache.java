@@ -0,0 +1,208 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.csv.RowIndexCache.Key;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * keeps a snapshot of the model of a csv file next to the other settings, so a file that is
+ * still being worked on is opened again without parsing it, together with the changes that
+ * were not saved yet. It is a cache and not a file format to exchange: a snapshot is only used,
+ * if path, size, modification time, a hash of samples of the content and the csv dialect of the
+ * csv file are the same as when it was stored, see {@link RowIndexCache}.
+ */
+public final class SessionCache {
+
+    private static final Logger logger = LogManager.getLogger(SessionCache.class);
+
+    private static final int MAGIC = 0x53435353;
+    private static final int VERSION = 1;
+    private static final int MAX_ENTRIES = 8;
+    // magic, version and the flag of unsaved changes come before the size of the header
+    private static final int HEADER_SIZE_OFFSET = 9;
+    private static final ValueLayout.OfInt HEADER_SIZE = JAVA_INT_UNALIGNED.withOrder(BIG_ENDIAN);
+
+    private final File directory;
+
+    /**
+     * the model of a session and if it has changes that are not saved in the csv file
+     */
+    public record Session(CSVModel model, boolean unsavedChanges) {
+    }
+
+    /**
+     * @param directory the directory for the snapshots, it is created when the first snapshot is stored
+     */
+    public SessionCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * returns the stored session of the file, an outdated snapshot is removed
+     * @param file the csv file
+     * @param csvPreference the csv dialect the file is read with
+     * @param charset the charset the file is read with
+     * @param storageMode where the cells of the model are kept
+     * @return the session or null if there is no snapshot for the current state of the file
+     */
+    public Session load(File file, Preferences csvPreference, Charset charset, StorageMode storageMode) {
+        File entry = entryOf(file);
+        if (!entry.exists()) {
+            return null;
+        }
+        try (var channel = FileChannel.open(entry.toPath(), READ);
+             var arena = Arena.ofConfined()) {
+            MemorySegment snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            long headerSize = snapshot.get(HEADER_SIZE, HEADER_SIZE_OFFSET);
+            var header = new DataInputStream(new ByteArrayInputStream(snapshot.asSlice(0, headerSize).toArray(JAVA_BYTE)));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                return null;
+            }
+            boolean unsavedChanges = header.readBoolean();
+            header.readInt();
+            Key stored = Key.readFrom(header);
+            if (!stored.equals(RowIndexCache.keyOf(file, csvPreference, charset))) {
+                logger.info("session of {} is outdated", file);
+                remove(file);
+                return null;
+            }
+            CSVModel model = SessionSnapshot.read(snapshot, headerSize, storageMode);
+            logger.info("loaded session of {} with {} rows", file, model.getNumberOfRows());
+            return new Session(model, unsavedChanges);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("could not read session of {}: {}", file, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * stores a snapshot of the model of the file
+     * @param file the csv file
+     * @param csvPreference the csv dialect the file was read with
+     * @param charset the charset the file was read with
+     * @param session the model and if it has changes that are not saved in the csv file
+     * @param progressMonitor receives the progress of the snapshot
+     */
+    public void store(File file, Preferences csvPreference, Charset charset, Session session,
+                      ProgressMonitor progressMonitor) throws IOException {
+        Files.createDirectories(directory.toPath());
+        Path temp = Files.createTempFile(directory.toPath(), "session", ".tmp");
+        try {
+            var header = new ByteArrayOutputStream();
+            var out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(session.unsavedChanges());
+            // the size of the header, the snapshot follows it
+            out.writeInt(0);
+            RowIndexCache.keyOf(file, csvPreference, charset).writeTo(out);
+            ByteBuffer headerBytes = ByteBuffer.wrap(header.toByteArray());
+            headerBytes.putInt(HEADER_SIZE_OFFSET, headerBytes.capacity());
+
+            try (var channel = FileChannel.open(temp, WRITE)) {
+                while (headerBytes.hasRemaining()) {
+                    channel.write(headerBytes);
+                }
+                SessionSnapshot.write(session.model(), channel, progressMonitor);
+            }
+            Files.move(temp, entryOf(file).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            removeOldEntries();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * removes the snapshot of the file
+     * @param file the csv file
+     */
+    public void remove(File file) {
+        try {
+            Files.deleteIfExists(entryOf(file).toPath());
+        } catch (IOException ex) {
+            logger.warn("could not remove session of {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private File entryOf(File file) {
+        return new File(directory, HexFormat.of().formatHex(digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8))) + ".session");
+    }
+
+    private void removeOldEntries() throws IOException {
+        try (Stream<Path> entries = Files.list(directory.toPath())) {
+            Path[] outdated = entries.filter(path -> path.getFileName().toString().endsWith(".session"))
+                    .sorted(Comparator.comparing((Path path) -> path.toFile().lastModified()).reversed())
+                    .skip(MAX_ENTRIES)
+                    .toArray(Path[]::new);
+            for (Path path : outdated) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
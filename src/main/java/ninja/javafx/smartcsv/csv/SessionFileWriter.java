@@ -0,0 +1,68 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.FileWriter;
+import ninja.javafx.smartcsv.csv.SessionCache.Session;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * stores the model of a csv file as session in the cache, the csv file itself is not changed
+ */
+public class SessionFileWriter extends CSVConfigurable implements FileWriter<CSVModel> {
+
+    private final SessionCache sessionCache;
+    private CSVModel model;
+    private boolean unsavedChanges;
+
+    public SessionFileWriter(SessionCache sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    public void setContent(CSVModel model) {
+        this.model = model;
+    }
+
+    /**
+     * @param unsavedChanges true if the model has changes that are not saved in the csv file yet
+     */
+    public void setUnsavedChanges(boolean unsavedChanges) {
+        this.unsavedChanges = unsavedChanges;
+    }
+
+    /**
+     * @param file the csv file the session belongs to
+     */
+    @Override
+    public void write(File file) throws IOException {
+        sessionCache.store(file, csvPreference, Charset.forName(fileEncoding), new Session(model, unsavedChanges), progressMonitor);
+    }
+}
@@ -0,0 +1,363 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.CellStore;
+import ninja.javafx.smartcsv.fx.table.model.RowBuilder;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import ninja.javafx.smartcsv.fx.table.model.ValueDictionary;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_CHAR_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.nio.ByteOrder.BIG_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * columnar binary snapshot of a model that holds all rows in memory.
+ * Dictionary encoded columns are stored as their values and a code per row, all other columns
+ * as the utf-8 bytes of their values and a length per row. A snapshot is read from a memory mapped
+ * file and the values go into the cell store as they are, without parsing or decoding csv text.
+ * The charset and byte order mark of the csv file are kept, so the model is written back unchanged.
+ */
+final class SessionSnapshot {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int NO_HEADER = -1;
+    private static final byte DICTIONARY_COLUMN = 0;
+    private static final byte UTF8_COLUMN = 1;
+    private static final byte BYTE_ORDER_MARK = 1;
+    private static final byte LAST_ROW_INCOMPLETE = 2;
+
+    private static final ValueLayout.OfChar CHAR = JAVA_CHAR_UNALIGNED.withOrder(BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT = JAVA_INT_UNALIGNED.withOrder(BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = JAVA_LONG_UNALIGNED.withOrder(BIG_ENDIAN);
+
+    private SessionSnapshot() {
+    }
+
+    /**
+     * writes the model at the current position of the channel
+     * @param model the model, it must hold all rows in memory
+     * @param channel the channel of the snapshot file
+     * @param progressMonitor receives a progress update after each column
+     */
+    static void write(CSVModel model, FileChannel channel, ProgressMonitor progressMonitor) throws IOException {
+        if (model.getRowSource() != null) {
+            throw new IOException("a session can only be saved for files that are completely loaded");
+        }
+        var out = new Output(channel);
+        out.putString(model.getCharset() != null ? model.getCharset().name() : "");
+        out.putByte((byte) ((model.hasByteOrderMark() ? BYTE_ORDER_MARK : 0) |
+                (model.isLastRowIncomplete() ? LAST_ROW_INCOMPLETE : 0)));
+        out.putLong(model.getFileLength());
+
+        String[] header = model.getHeader();
+        if (header == null) {
+            out.putInt(NO_HEADER);
+            out.flush();
+            return;
+        }
+        out.putInt(header.length);
+        for (String name : header) {
+            out.putString(name);
+        }
+        List<CSVRow> rows = model.getRows();
+        out.putInt(rows.size());
+        for (int position = 0; position < header.length; position++) {
+            int column = model.getColumnIndex(header[position]);
+            ValueDictionary dictionary = model.getDictionary(column);
+            if (dictionary != null) {
+                writeDictionaryColumn(out, rows, column, dictionary);
+            } else {
+                writeUtf8Column(out, rows, column);
+            }
+            if (progressMonitor.isCancelled()) {
+                throw new CancellationException("cancelled");
+            }
+            progressMonitor.update(rows.size(), out.position(), (double) (position + 1) / header.length);
+        }
+        out.flush();
+    }
+
+    private static void writeDictionaryColumn(Output out, List<CSVRow> rows, int column, ValueDictionary dictionary) throws IOException {
+        char[] codes = new char[rows.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (char) (rows.get(i).getCode(column) + 1);
+        }
+        // the dictionary only grows, so it is taken after the codes to contain all of them
+        int size = dictionary.size();
+        out.putByte(DICTIONARY_COLUMN);
+        out.putInt(size);
+        for (int code = 0; code < size; code++) {
+            out.putString(dictionary.get(code));
+        }
+        out.putChars(codes);
+    }
+
+    /**
+     * the number of bytes is only known at the end, it is filled in afterwards
+     */
+    private static void writeUtf8Column(Output out, List<CSVRow> rows, int column) throws IOException {
+        out.putByte(UTF8_COLUMN);
+        int[] lengths = new int[rows.size()];
+        long lengthPosition = out.position();
+        out.putLong(0);
+        long start = out.position();
+        for (int i = 0; i < lengths.length; i++) {
+            CSVRow row = rows.get(i);
+            ByteBuffer buffer = out.reserve(0);
+            int length = row.copyUtf8(column, buffer);
+            if (length == CellStore.NOT_COPIED) {
+                String value = row.get(column);
+                byte[] bytes = value.getBytes(UTF_8);
+                out.put(bytes);
+                length = bytes.length;
+            }
+            lengths[i] = length;
+        }
+        out.putLongAt(lengthPosition, out.position() - start);
+        out.putInts(lengths);
+    }
+
+    /**
+     * reads the model from the snapshot
+     * @param snapshot the mapped snapshot file
+     * @param offset the offset of the snapshot in the file
+     * @param storageMode where the cells of the model are kept
+     * @return the model
+     */
+    static CSVModel read(MemorySegment snapshot, long offset, StorageMode storageMode) {
+        var in = new Input(snapshot, offset);
+        var model = new CSVModel(storageMode);
+        String charset = in.getString();
+        byte flags = in.getByte();
+        model.setCharset(charset.isEmpty() ? null : Charset.forName(charset), (flags & BYTE_ORDER_MARK) != 0);
+        model.setFileLength(in.getLong());
+        model.setLastRowIncomplete((flags & LAST_ROW_INCOMPLETE) != 0);
+
+        int columns = in.getInt();
+        if (columns == NO_HEADER) {
+            return model;
+        }
+        String[] header = new String[columns];
+        for (int position = 0; position < columns; position++) {
+            header[position] = in.getString();
+        }
+        model.setHeader(header);
+
+        RowBuilder rowBuilder = model.rowBuilder();
+        int rows = in.getInt();
+        int firstSlot = rowBuilder.addEmptyRows(rows);
+        for (int position = 0; position < columns; position++) {
+            if (in.getByte() == DICTIONARY_COLUMN) {
+                String[] values = new String[in.getInt()];
+                for (int code = 0; code < values.length; code++) {
+                    values[code] = in.getString();
+                }
+                rowBuilder.loadDictionaryColumn(position, firstSlot, values, in.getChars(rows));
+            } else {
+                long length = in.getLong();
+                long start = in.skip(length);
+                rowBuilder.loadUtf8Column(position, firstSlot, in.getInts(rows), snapshot, start);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * buffered big endian output to a channel
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final long start;
+        private long written;
+
+        Output(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.start = channel.position();
+        }
+
+        long position() {
+            return written + buffer.position();
+        }
+
+        /**
+         * returns the buffer with at least the given room, values that do not fit in
+         * after a flush are written directly by {@link #put(byte[])}
+         */
+        ByteBuffer reserve(int length) throws IOException {
+            if (buffer.remaining() < Math.max(length, BUFFER_SIZE / 16)) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void putByte(byte value) throws IOException {
+            reserve(Byte.BYTES).put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            reserve(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            reserve(Long.BYTES).putLong(value);
+        }
+
+        void putLongAt(long position, long value) throws IOException {
+            if (position >= written) {
+                buffer.putLong((int) (position - written), value);
+            } else {
+                ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES).putLong(0, value);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes, start + position + bytes.position());
+                }
+            }
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(UTF_8);
+            putInt(bytes.length);
+            put(bytes);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                written += bytes.length;
+            } else {
+                reserve(bytes.length).put(bytes);
+            }
+        }
+
+        void putChars(char[] values) throws IOException {
+            for (int from = 0; from < values.length; ) {
+                int count = Math.min(values.length - from, reserve(Character.BYTES).remaining() / Character.BYTES);
+                buffer.asCharBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Character.BYTES);
+                from += count;
+            }
+        }
+
+        void putInts(int[] values) throws IOException {
+            for (int from = 0; from < values.length; ) {
+                int count = Math.min(values.length - from, reserve(Integer.BYTES).remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                from += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            written += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * big endian input from a memory segment, the arrays are copied in bulk
+     */
+    private static final class Input {
+        private final MemorySegment segment;
+        private long position;
+
+        Input(MemorySegment segment, long position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        byte getByte() {
+            return segment.get(JAVA_BYTE, position++);
+        }
+
+        int getInt() {
+            int value = segment.get(INT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        long getLong() {
+            long value = segment.get(LONG, position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        String getString() {
+            int length = getInt();
+            byte[] bytes = new byte[length];
+            MemorySegment.copy(segment, JAVA_BYTE, position, bytes, 0, length);
+            position += length;
+            return new String(bytes, UTF_8);
+        }
+
+        char[] getChars(int count) {
+            char[] values = new char[count];
+            MemorySegment.copy(segment, CHAR, position, values, 0, count);
+            position += (long) count * Character.BYTES;
+            return values;
+        }
+
+        int[] getInts(int count) {
+            int[] values = new int[count];
+            MemorySegment.copy(segment, INT, position, values, 0, count);
+            position += (long) count * Integer.BYTES;
+            return values;
+        }
+
+        /**
+         * @return the position before the skipped bytes
+         */
+        long skip(long length) {
+            long skipped = position;
+            position += length;
+            return skipped;
+        }
+    }
+}
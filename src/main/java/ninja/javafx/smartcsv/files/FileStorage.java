@@ -32,6 +32,7 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import ninja.javafx.smartcsv.FileReader;
 import ninja.javafx.smartcsv.FileWriter;
+import ninja.javafx.smartcsv.ProgressMonitor;
 
 import java.io.File;
 import java.io.IOException;
@@ -93,7 +94,7 @@ public class FileStorage<E> {
     public void load() throws IOException {
         reader.read(file.get());
         setContent(reader.getContent());
-        setFileChanged(false);
+        setFileChanged(reader.hasUnsavedChanges());
     }
 
     public void save() throws IOException {
@@ -101,4 +102,30 @@ public class FileStorage<E> {
         writer.write(file.get());
         setFileChanged(false);
     }
+
+    /**
+     * loads the file and reports the progress to the monitor.
+     * If the monitor cancels the load, the content is not changed.
+     */
+    public void load(ProgressMonitor progressMonitor) throws IOException {
+        reader.setProgressMonitor(progressMonitor);
+        try {
+            load();
+        } finally {
+            reader.setProgressMonitor(ProgressMonitor.NONE);
+        }
+    }
+
+    /**
+     * saves the file and reports the progress to the monitor.
+     * If the monitor cancels the save, the file is not changed.
+     */
+    public void save(ProgressMonitor progressMonitor) throws IOException {
+        writer.setProgressMonitor(progressMonitor);
+        try {
+            save();
+        } finally {
+            writer.setProgressMonitor(ProgressMonitor.NONE);
+        }
+    }
 }
@@ -27,9 +27,11 @@
 package ninja.javafx.smartcsv.fx;
 
 import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.collections.ListChangeListener;
 import javafx.collections.WeakListChangeListener;
+import javafx.concurrent.Service;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -41,8 +43,13 @@ import javafx.scene.input.TransferMode;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.FileChooser;
+import ninja.javafx.smartcsv.csv.CSVFileFollower;
 import ninja.javafx.smartcsv.csv.CSVFileReader;
 import ninja.javafx.smartcsv.csv.CSVFileWriter;
+import ninja.javafx.smartcsv.csv.EditJournal;
+import ninja.javafx.smartcsv.csv.RowIndexCache;
+import ninja.javafx.smartcsv.csv.SessionCache;
+import ninja.javafx.smartcsv.csv.SessionFileWriter;
 import ninja.javafx.smartcsv.export.ErrorExport;
 import ninja.javafx.smartcsv.files.FileStorage;
 import ninja.javafx.smartcsv.fx.about.AboutController;
@@ -54,6 +61,8 @@ import ninja.javafx.smartcsv.fx.table.ValidationCellFactory;
 import ninja.javafx.smartcsv.fx.table.model.CSVModel;
 import ninja.javafx.smartcsv.fx.table.model.CSVRow;
 import ninja.javafx.smartcsv.fx.table.model.CSVValue;
+import ninja.javafx.smartcsv.fx.table.model.CellChangeListener;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
 import ninja.javafx.smartcsv.fx.util.JavaFxUtils;
 import ninja.javafx.smartcsv.fx.util.LoadFileService;
 import ninja.javafx.smartcsv.fx.util.SaveFileService;
@@ -71,6 +80,11 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -105,8 +119,16 @@ public class SmartCSVController extends FXMLController {
             File.separator +
             "encoding.json");
 
+    private static final File INDEX_CACHE_DIRECTORY = new File(System.getProperty("user.home") +
+            File.separator +
+            ".SmartCSV.fx" +
+            File.separator +
+            "cache");
+
     public static final String CSV_FILTER_TEXT = "CSV files (*.csv)";
     public static final String CSV_FILTER_EXTENSION = "*.csv";
+    public static final String COMPRESSED_CSV_FILTER_TEXT = "Compressed CSV files (*.gz, *.zip)";
+    public static final String[] COMPRESSED_CSV_FILTER_EXTENSIONS = {"*.gz", "*.zip"};
     public static final String JSON_FILTER_TEXT = "JSON files (*.json)";
     public static final String JSON_FILTER_EXTENSION = "*.json";
     public static final String EXPORT_LOG_FILTER_TEXT = "Error log files (*.log)";
@@ -150,12 +172,24 @@ public class SmartCSVController extends FXMLController {
     @FXML
     private AnchorPane tableWrapper;
 
+    @FXML
+    private CheckMenuItem offHeapMenuItem;
+
+    @FXML
+    private CheckMenuItem followMenuItem;
+
+    @FXML
+    private CheckMenuItem backupMenuItem;
+
     @FXML
     private MenuItem saveMenuItem;
 
     @FXML
     private MenuItem saveAsMenuItem;
 
+    @FXML
+    private MenuItem saveSessionMenuItem;
+
     @FXML
     private MenuItem createConfigMenuItem;
 
@@ -213,6 +247,15 @@ public class SmartCSVController extends FXMLController {
     @FXML
     private Label totalNumberOfLines;
 
+    @FXML
+    private ProgressBar progressBar;
+
+    @FXML
+    private Label progressInfo;
+
+    @FXML
+    private Button cancelButton;
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // members
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -224,14 +267,31 @@ public class SmartCSVController extends FXMLController {
     private ResourceBundle resourceBundle;
     private CSVFileReader csvFileReader = new CSVFileReader();
     private CSVFileWriter csvFileWriter = new CSVFileWriter();
+    private SessionCache sessionCache = new SessionCache(INDEX_CACHE_DIRECTORY);
+    private SessionFileWriter sessionFileWriter = new SessionFileWriter(sessionCache);
 
     private FileStorage<CSVModel> currentCsvFile = new FileStorage<>(csvFileReader, csvFileWriter);
+    private FileStorage<CSVModel> currentSessionFile = new FileStorage<>(csvFileReader, sessionFileWriter);
     private FileStorage<ValidationConfiguration> currentConfigFile = new FileStorage<>(new ValidationFileReader(), new ValidationFileWriter());
     private FileStorage<Preferences> csvPreferenceFile = new FileStorage<>(new PreferencesFileReader(), new PreferencesFileWriter());
     private FileStorage<String> fileEncodingFile = new FileStorage<>(new EncodingFileReader(), new EncodingFileWriter());
-
+    private CSVFileFollower fileFollower;
+    private CSVModel followedModel;
+    private EditJournal editJournal;
+    private CSVModel journaledModel;
+
+    private Map<String, ObservableMapValueFactory> valueFactories = new HashMap<>();
+    private CellChangeListener cellChangeListener = (row, column, oldValue, newValue) -> {
+        ObservableMapValueFactory valueFactory = valueFactories.get(row.getColumnName(column));
+        if (valueFactory != null) {
+            valueFactory.valueChanged(row);
+        }
+        currentCsvFile.setFileChanged(true);
+    };
     private ListChangeListener<ValidationError> errorListListener = c -> tableView.refresh();
     private WeakListChangeListener<ValidationError> weakErrorListListener = new WeakListChangeListener<>(errorListListener);
+    private InvalidationListener rowCountListener = observable -> showRowCount();
+    private WeakInvalidationListener weakRowCountListener = new WeakInvalidationListener(rowCountListener);
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // init
@@ -240,11 +300,14 @@ public class SmartCSVController extends FXMLController {
     @Override
     public void initialize(URL location, ResourceBundle resourceBundle) {
         this.resourceBundle = resourceBundle;
+        loadFileService.setProgressFormat(resourceBundle.getString("progress.format"));
+        saveFileService.setProgressFormat(resourceBundle.getString("progress.format"));
+        saveFileService.setSyncMessage(resourceBundle.getString("progress.sync"));
 
         setupTableCellFactory();
         setupErrorSideBar(resourceBundle);
 
-        bindMenuItemsToContentExistence(currentCsvFile, saveMenuItem, saveAsMenuItem, addRowMenuItem, gotoLineMenuItem, createConfigMenuItem, loadConfigMenuItem);
+        bindMenuItemsToContentExistence(currentCsvFile, saveMenuItem, saveAsMenuItem, saveSessionMenuItem, addRowMenuItem, gotoLineMenuItem, createConfigMenuItem, loadConfigMenuItem);
         bindButtonsToContentExistence(currentCsvFile, saveButton, saveAsButton, addRowButton, createConfigButton, loadConfigButton);
 
         bindMenuItemsToContentExistence(currentConfigFile, saveConfigMenuItem, saveAsConfigMenuItem);
@@ -252,9 +315,17 @@ public class SmartCSVController extends FXMLController {
 
         bindCsvFileName();
         bindConfigFileName();
+        currentCsvFile.contentProperty().addListener((observable, oldModel, newModel) -> {
+            if (oldModel != null) {
+                oldModel.dispose();
+            }
+        });
 
         csvPreferenceFile.setFile(PREFERENCES_FILE);
         fileEncodingFile.setFile(ENCODING_FILE);
+        csvFileReader.setRowIndexCache(new RowIndexCache(INDEX_CACHE_DIRECTORY));
+        csvFileReader.setSessionCache(sessionCache);
+        csvFileReader.setProgressiveLoad(model -> runLater(() -> showFirstRows(model)), command -> runLater(command));
 
         loadCsvPreferencesFromFile();
 
@@ -267,7 +338,7 @@ public class SmartCSVController extends FXMLController {
             if (event.getGestureSource() != tableWrapper
                     && db.hasFiles()
                     && db.getFiles().size() == 1
-                    && db.getFiles().get(0).getName().endsWith(".csv")) {
+                    && CSVFileReader.canRead(db.getFiles().get(0))) {
                 event.acceptTransferModes(TransferMode.COPY);
             }
             event.consume();
@@ -299,6 +370,7 @@ public class SmartCSVController extends FXMLController {
         preferencesController.setFileEncoding(content);
         csvFileReader.setFileEncoding(content);
         csvFileWriter.setFileEncoding(content);
+        sessionFileWriter.setFileEncoding(content);
     }
 
     private void setupErrorSideBar(ResourceBundle resourceBundle) {
@@ -331,12 +403,42 @@ public class SmartCSVController extends FXMLController {
 
     @FXML
     public void openCsv(ActionEvent actionEvent) {
-        loadFile(CSV_FILTER_TEXT, CSV_FILTER_EXTENSION, "Open CSV", currentCsvFile);
+        loadFile("Open CSV", currentCsvFile,
+                new FileChooser.ExtensionFilter(CSV_FILTER_TEXT, CSV_FILTER_EXTENSION),
+                new FileChooser.ExtensionFilter(COMPRESSED_CSV_FILTER_TEXT, COMPRESSED_CSV_FILTER_EXTENSIONS));
+    }
+
+    /**
+     * the previous version of a saved csv file is kept as backup next to it
+     */
+    @FXML
+    public void toggleBackup(ActionEvent actionEvent) {
+        csvFileWriter.setKeepBackup(backupMenuItem.isSelected());
+    }
+
+    /**
+     * the storage mode is used for the csv files opened afterwards
+     */
+    @FXML
+    public void toggleOffHeapStorage(ActionEvent actionEvent) {
+        csvFileReader.setStorageMode(offHeapMenuItem.isSelected() ? StorageMode.OFF_HEAP : StorageMode.HEAP);
+    }
+
+    /**
+     * rows that another program appends to the csv file are added to the table
+     */
+    @FXML
+    public void toggleFollow(ActionEvent actionEvent) {
+        stopFollowing();
+        if (followMenuItem.isSelected()) {
+            startFollowing();
+        }
     }
 
     @FXML
     public void openConfig(ActionEvent actionEvent) {
-        loadFile(JSON_FILTER_TEXT, JSON_FILTER_EXTENSION, "Open Validation Configuration", currentConfigFile);
+        loadFile("Open Validation Configuration", currentConfigFile,
+                new FileChooser.ExtensionFilter(JSON_FILTER_TEXT, JSON_FILTER_EXTENSION));
     }
 
     @FXML
@@ -349,12 +451,31 @@ public class SmartCSVController extends FXMLController {
 
     @FXML
     public void saveCsv(ActionEvent actionEvent) {
+        // the saved file replaces the followed one, following goes on from its end afterwards
+        stopFollowing();
         useSaveFileService(currentCsvFile);
     }
 
     @FXML
     public void saveAsCsv(ActionEvent actionEvent) {
-        saveFile(CSV_FILTER_TEXT, CSV_FILTER_EXTENSION, currentCsvFile);
+        stopFollowing();
+        if (saveFile(CSV_FILTER_TEXT, CSV_FILTER_EXTENSION, currentCsvFile) == null && followMenuItem.isSelected()) {
+            startFollowing();
+        }
+    }
+
+    /**
+     * keeps a snapshot of the csv file with its unsaved changes, the file is restored from it
+     * when it is opened the next time, as long as it was not changed in the meantime
+     */
+    @FXML
+    public void saveSession(ActionEvent actionEvent) {
+        if (currentCsvFile.getFile() != null && !isLoadingCsvFile()) {
+            currentSessionFile.setFile(currentCsvFile.getFile());
+            currentSessionFile.setContent(currentCsvFile.getContent());
+            sessionFileWriter.setUnsavedChanges(currentCsvFile.isFileChanged());
+            useSaveFileService(currentSessionFile);
+        }
     }
 
     @FXML
@@ -432,7 +553,14 @@ public class SmartCSVController extends FXMLController {
 
     @FXML
     public void deleteRow(ActionEvent actionEvent) {
-        currentCsvFile.getContent().getRows().removeAll(tableView.getSelectionModel().getSelectedItems());
+        List<Integer> selectedRows = new ArrayList<>(tableView.getSelectionModel().getSelectedIndices());
+        selectedRows.sort(Comparator.reverseOrder());
+        currentCsvFile.getContent().removeRows(selectedRows);
+        if (editJournal != null) {
+            for (int selectedRow : selectedRows) {
+                editJournal.rowRemoved(selectedRow);
+            }
+        }
         currentCsvFile.setFileChanged(true);
         resetContent();
     }
@@ -440,8 +568,12 @@ public class SmartCSVController extends FXMLController {
     @FXML
     public void addRow(ActionEvent actionEvent) {
         CSVRow row = currentCsvFile.getContent().addRow();
+        if (editJournal != null) {
+            editJournal.rowAdded();
+        }
+        // the values are set like edits, so they are journaled and validated
         for (String column : currentCsvFile.getContent().getHeader()) {
-            currentCsvFile.getContent().addValue(row, column, "");
+            row.set(currentCsvFile.getContent().getColumnIndex(column), "");
         }
         currentCsvFile.setFileChanged(true);
         resetContent();
@@ -499,6 +631,10 @@ public class SmartCSVController extends FXMLController {
                 canExit = false;
             }
         }
+        if (canExit) {
+            // the edits are dropped or saved, so their journal is no longer needed
+            stopJournal(true);
+        }
 
         return canExit;
     }
@@ -625,18 +761,17 @@ public class SmartCSVController extends FXMLController {
         preferencesController.setCsvPreference(csvPreference);
         csvFileReader.setCsvPreference(csvPreference);
         csvFileWriter.setCsvPreference(csvPreference);
+        sessionFileWriter.setCsvPreference(csvPreference);
 
     }
 
-    private void loadFile(String filterText,
-                          String filter,
-                          String title,
-                          FileStorage storageFile) {
+    private void loadFile(String title,
+                          FileStorage storageFile,
+                          FileChooser.ExtensionFilter... extFilters) {
         final FileChooser fileChooser = new FileChooser();
 
-        //Set extension filter
-        final FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter(filterText, filter);
-        fileChooser.getExtensionFilters().add(extFilter);
+        //Set extension filters
+        fileChooser.getExtensionFilters().addAll(extFilters);
         fileChooser.setTitle(title);
 
         if (storageFile.getFile() != null) {
@@ -651,8 +786,57 @@ public class SmartCSVController extends FXMLController {
     private void openFile(FileStorage storageFile, File file) {
         if (file != null) {
             File previousFile = storageFile.getFile();
+            Object previousContent = storageFile.getContent();
             storageFile.setFile(file);
-            useLoadFileService(storageFile, t -> resetContent(), () -> storageFile.setFile(previousFile));
+            useLoadFileService(storageFile, t -> {
+                if (isShownWhileLoading(storageFile)) {
+                    loadFinished();
+                } else {
+                    resetContent();
+                }
+                if (storageFile == currentCsvFile) {
+                    startJournal(true, csvFileReader.isSessionRestored());
+                }
+            }, () -> {
+                storageFile.setFile(previousFile);
+                if (storageFile.getContent() != previousContent) {
+                    storageFile.setContent(previousContent);
+                    resetContent();
+                }
+            });
+        }
+    }
+
+    /**
+     * shows the first rows of the csv file, the other rows are appended while the file is loaded
+     */
+    private void showFirstRows(CSVModel model) {
+        if (isLoadingCsvFile()) {
+            currentCsvFile.setContent(model);
+            resetContent();
+        }
+    }
+
+    private boolean isLoadingCsvFile() {
+        return loadFileService.isRunning() && loadFileService.getFileStorage() == currentCsvFile;
+    }
+
+    private boolean isShownWhileLoading(FileStorage<?> storageFile) {
+        return storageFile == currentCsvFile &&
+                tableView != null &&
+                currentCsvFile.getContent() != null &&
+                tableView.getItems() == currentCsvFile.getContent().getRows();
+    }
+
+    /**
+     * the table already shows the model, it only becomes editable now that all rows are there
+     */
+    private void loadFinished() {
+        tableView.setEditable(true);
+        showRowCount();
+        showMemoryUsage(currentCsvFile.getContent());
+        if (followMenuItem.isSelected()) {
+            startFollowing();
         }
     }
 
@@ -689,15 +873,50 @@ public class SmartCSVController extends FXMLController {
 
     private void useLoadFileService(FileStorage<?> fileStorage, EventHandler<WorkerStateEvent> onSucceededHandler, Runnable rollbackAction) {
         loadFileService.setFileStorage(fileStorage);
+        bindProgress(loadFileService);
         loadFileService.restart();
         loadFileService.setOnSucceeded(onSucceededHandler);
         loadFileService.setOnFailed(event -> JavaFxUtils.onServiceError(event, "LoadFileService Error", "Failed to load the file.", rollbackAction));
+        loadFileService.setOnCancelled(event -> rollbackAction.run());
     }
 
     private void useSaveFileService(FileStorage<?> fileStorage) {
         saveFileService.setFileStorage(fileStorage);
+        bindProgress(saveFileService);
         saveFileService.restart();
-        saveFileService.setOnSucceeded(t -> resetContent());
+        saveFileService.setOnSucceeded(t -> {
+            // the table already shows the content of a session
+            if (fileStorage == currentSessionFile) {
+                currentSessionFile.setContent(null);
+                startJournal(false, true);
+            } else {
+                resetContent();
+                if (fileStorage == currentCsvFile) {
+                    startJournal(false, false);
+                }
+            }
+        });
+        // the old file is still in place, following goes on from where it stopped
+        Runnable rollbackAction = () -> {
+            if (fileStorage == currentCsvFile && followMenuItem.isSelected()) {
+                startFollowing();
+            }
+        };
+        saveFileService.setOnFailed(event -> JavaFxUtils.onServiceError(event, "SaveFileService Error", "Failed to save the file.", rollbackAction));
+        saveFileService.setOnCancelled(event -> rollbackAction.run());
+    }
+
+    /**
+     * shows the progress of the service in the status bar and lets the user cancel it
+     */
+    private void bindProgress(Service<?> service) {
+        progressBar.progressProperty().bind(service.progressProperty());
+        progressInfo.textProperty().bind(service.messageProperty());
+        for (Node node : new Node[] {progressBar, progressInfo, cancelButton}) {
+            node.visibleProperty().bind(service.runningProperty());
+            node.managedProperty().bind(service.runningProperty());
+        }
+        cancelButton.setOnAction(event -> service.cancel());
     }
 
     /**
@@ -705,9 +924,18 @@ public class SmartCSVController extends FXMLController {
      */
     private void resetContent() {
         resetExportButtons();
+        stopFollowing();
+        if (followMenuItem.isSelected() && !isLoadingCsvFile()) {
+            startFollowing();
+        }
 
         if (currentCsvFile.getContent() != null) {
             currentCsvFile.getContent().getValidationError().addListener(weakErrorListListener);
+            currentCsvFile.getContent().getRows().removeListener(weakRowCountListener);
+            currentCsvFile.getContent().getRows().addListener(weakRowCountListener);
+            currentCsvFile.getContent().removeChangeListener(cellChangeListener);
+            currentCsvFile.getContent().addChangeListener(cellChangeListener);
+            valueFactories.clear();
             currentCsvFile.getContent().setValidationConfiguration(currentConfigFile.getContent());
             validationEditorController.setValidationConfiguration(currentConfigFile.getContent());
             tableView = new TableView<>();
@@ -724,10 +952,12 @@ public class SmartCSVController extends FXMLController {
                     (InvalidationListener) observable -> currentCsvFile.getContent().setHeader(
                             tableView.getColumns().stream().map((x) -> x.getText()).toArray(String[]::new)));
 
-            tableView.getItems().setAll(currentCsvFile.getContent().getRows());
-            tableView.setEditable(true);
+            tableView.setItems(currentCsvFile.getContent().getRows());
+            // rows that are edited while the file is still loaded would be marked as saved when the load is done
+            tableView.setEditable(!isLoadingCsvFile());
 
-            totalNumberOfLines.textProperty().setValue("" + currentCsvFile.getContent().getRows().size());
+            showRowCount();
+            showMemoryUsage(currentCsvFile.getContent());
 
             setBottomAnchor(tableView, 0.0);
             setTopAnchor(tableView, 0.0);
@@ -739,6 +969,108 @@ public class SmartCSVController extends FXMLController {
         }
     }
 
+    /**
+     * parses the rows appended to the current file in the background and adds them batch by batch
+     */
+    private void startFollowing() {
+        CSVModel model = currentCsvFile.getContent();
+        File file = currentCsvFile.getFile();
+        if (model == null || file == null ||
+                !CSVFileFollower.supports(file, csvFileReader.getCsvPreference(), model.getCharset())) {
+            return;
+        }
+        followedModel = model;
+        fileFollower = new CSVFileFollower(file, model.getFileLength(), model.getCharset(),
+                records -> runLater(() -> model.appendRows(records)));
+        fileFollower.setCsvPreference(csvFileReader.getCsvPreference());
+        try {
+            fileFollower.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            fileFollower = null;
+            followMenuItem.setSelected(false);
+        }
+    }
+
+    private void stopFollowing() {
+        if (fileFollower != null) {
+            fileFollower.close();
+            followedModel.setFileLength(fileFollower.getOffset());
+            fileFollower = null;
+            followedModel = null;
+        }
+    }
+
+    /**
+     * records the edits of the csv file in a journal next to it. When the file is opened, the edits that were not saved
+     * the last time are replayed. When the edits are saved in the file or a session, the journal starts again empty.
+     * @param opened true if the file was just opened and the journal is replayed, false if the edits were just saved
+     * @param onSession true if the journal is replayed on a session of the file
+     */
+    private void startJournal(boolean opened, boolean onSession) {
+        CSVModel model = currentCsvFile.getContent();
+        File file = currentCsvFile.getFile();
+        // the journal of a file that is left without saving keeps its edits for the next time it is opened
+        stopJournal(!opened);
+        if (model == null || file == null) {
+            return;
+        }
+        try {
+            editJournal = EditJournal.open(file, csvFileReader.getCsvPreference(),
+                    Charset.forName(csvFileReader.getFileEncoding()), onSession);
+            journaledModel = model;
+            if (opened && editJournal.replay(model) > 0) {
+                currentCsvFile.setFileChanged(true);
+            }
+            if (!opened) {
+                editJournal.reset(onSession);
+            }
+            model.addChangeListener(editJournal);
+        } catch (IOException e) {
+            e.printStackTrace();
+            stopJournal(false);
+        }
+    }
+
+    /**
+     * @param delete true if the records of the journal are dropped, false to keep them for the next time the file is opened
+     */
+    private void stopJournal(boolean delete) {
+        if (editJournal != null) {
+            journaledModel.removeChangeListener(editJournal);
+            try {
+                if (delete) {
+                    editJournal.delete();
+                } else {
+                    editJournal.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            editJournal = null;
+            journaledModel = null;
+        }
+    }
+
+    private void showRowCount() {
+        CSVModel model = currentCsvFile.getContent();
+        if (model == null) {
+            return;
+        }
+        int rows = model.getRows().size();
+        if (isLoadingCsvFile()) {
+            totalNumberOfLines.textProperty().setValue(format(resourceBundle.getString("rows.loading"), rows));
+        } else {
+            totalNumberOfLines.textProperty().setValue("" + rows);
+        }
+    }
+
+    private void showMemoryUsage(CSVModel model) {
+        double heap = model.memoryUsage() / (1024.0 * 1024.0);
+        double offHeap = model.offHeapUsage() / (1024.0 * 1024.0);
+        totalNumberOfLines.setTooltip(new Tooltip(format(resourceBundle.getString("memory.usage"), heap, offHeap)));
+    }
+
     private void binExportButtons() {
         exportButton.disableProperty().bind(Bindings.isEmpty(currentCsvFile.getContent().getValidationError()));
         exportMenuItem.disableProperty().bind(Bindings.isEmpty(currentCsvFile.getContent().getValidationError()));
@@ -758,7 +1090,9 @@ public class SmartCSVController extends FXMLController {
      */
     private void addColumn(final String header, TableView tableView) {
         TableColumn column = new TableColumn(header);
-        column.setCellValueFactory(new ObservableMapValueFactory(header));
+        ObservableMapValueFactory valueFactory = new ObservableMapValueFactory(header);
+        valueFactories.put(header, valueFactory);
+        column.setCellValueFactory(valueFactory);
         column.setCellFactory(cellFactory);
         column.setEditable(true);
         column.setSortable(false);
@@ -770,10 +1104,7 @@ public class SmartCSVController extends FXMLController {
             @Override
             public void handle(TableColumn.CellEditEvent<CSVRow, CSVValue> event) {
                 event.getTableView().getItems().get(event.getTablePosition().getRow()).
-                getColumns().get(header).setValue(event.getNewValue());
-                runLater(() -> {
-                    currentCsvFile.setFileChanged(true);
-                });
+                getValue(header).setValue(event.getNewValue().getValue());
             }
         });
 
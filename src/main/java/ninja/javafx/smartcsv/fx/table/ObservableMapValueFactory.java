@@ -26,27 +26,126 @@
 
 package ninja.javafx.smartcsv.fx.table;
 
-import javafx.beans.property.ObjectProperty;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.beans.value.ObservableValueBase;
 import javafx.scene.control.TableColumn;
 import javafx.util.Callback;
 import ninja.javafx.smartcsv.fx.table.model.CSVRow;
 import ninja.javafx.smartcsv.fx.table.model.CSVValue;
+import ninja.javafx.smartcsv.fx.table.model.CellStore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * cell value factory for the columns in the tableview
+ * cell value factory for the columns in the tableview.
+ * The rows do not have properties, an observable value is only created for a cell that is shown
+ * in the table. It is dropped when the table cell moves on to another row, so the number of
+ * observable values depends on the size of the viewport and not on the size of the file.
  */
 public class ObservableMapValueFactory implements
-        Callback<TableColumn.CellDataFeatures<CSVRow, CSVValue>, ObjectProperty<CSVValue>> {
+        Callback<TableColumn.CellDataFeatures<CSVRow, CSVValue>, ObservableValue<CSVValue>> {
+
+    /**
+     * table cells that are thrown away without unbinding do not drop their value,
+     * so only the values of the recently shown rows are kept
+     */
+    static final int MAX_BOUND_CELLS = 512;
 
-    private final Object key;
+    private final String key;
+    private CellStore store;
+    private int column;
+    private final Map<CSVRow, CellValue> boundCells = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CSVRow, CellValue> eldest) {
+            return size() > MAX_BOUND_CELLS;
+        }
+    };
 
-    public ObservableMapValueFactory(Object key) {
+    public ObservableMapValueFactory(String key) {
         this.key = key;
     }
 
     @Override
-    public ObjectProperty<CSVValue> call(TableColumn.CellDataFeatures<CSVRow, CSVValue> features) {
+    public ObservableValue<CSVValue> call(TableColumn.CellDataFeatures<CSVRow, CSVValue> features) {
         CSVRow row = features.getValue();
-        return row.getColumns().get(key);
+        CellValue cell = boundCells.get(row);
+        if (cell == null) {
+            if (row.getStore() != store) {
+                // the column is only looked up by name when the row belongs to another store
+                store = row.getStore();
+                column = store.getColumnIndex(key);
+            }
+            cell = new CellValue(row, column);
+            boundCells.put(row, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * informs the table cell that shows the value of the row about a change
+     * @param row the changed row
+     */
+    public void valueChanged(CSVRow row) {
+        CellValue cell = boundCells.get(row);
+        if (cell != null) {
+            cell.changed();
+        }
+    }
+
+    /**
+     * observable value of a shown cell. Each call of getValue returns a new view on the cell,
+     * so the table cell always sees a changed item and renders the current text.
+     */
+    private final class CellValue extends ObservableValueBase<CSVValue> {
+        private final CSVRow row;
+        private final int column;
+        private int listeners;
+
+        CellValue(CSVRow row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public CSVValue getValue() {
+            return column < 0 ? null : row.getValue(column);
+        }
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+            super.addListener(listener);
+            listeners++;
+        }
+
+        @Override
+        public void addListener(ChangeListener<? super CSVValue> listener) {
+            super.addListener(listener);
+            listeners++;
+        }
+
+        @Override
+        public void removeListener(InvalidationListener listener) {
+            super.removeListener(listener);
+            unbound();
+        }
+
+        @Override
+        public void removeListener(ChangeListener<? super CSVValue> listener) {
+            super.removeListener(listener);
+            unbound();
+        }
+
+        void changed() {
+            fireValueChangedEvent();
+        }
+
+        private void unbound() {
+            if (listeners > 0 && --listeners == 0) {
+                boundCells.remove(row, this);
+            }
+        }
     }
 }
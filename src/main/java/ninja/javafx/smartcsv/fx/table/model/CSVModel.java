@@ -26,7 +26,9 @@
 
 package ninja.javafx.smartcsv.fx.table.model;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import ninja.javafx.smartcsv.validation.RevalidationService;
 import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
@@ -35,6 +37,19 @@ import ninja.javafx.smartcsv.validation.Validator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
 /**
  * The CSVModel is the client representation for the csv filepath.
  * It holds the data in rows, stores the header and manages the validator.
@@ -44,10 +59,78 @@ public final class CSVModel implements ColumnValueProvider {
     private static final Logger logger = LogManager.getLogger(CSVModel.class);
 
     private Validator validator;
-    private ObservableList<CSVRow> rows = FXCollections.observableArrayList();
+    private final CellStore store;
+    private final ObservableList<CSVRow> rows;
     private String[] header;
     private ObservableList<ValidationError> validationError = FXCollections.observableArrayList();
     private RevalidationService revalidationService = new RevalidationService();
+    private final List<CellChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private List<CSVValue> changedValues = new ArrayList<>();
+    private Map<Integer, Set<String>> changedUniqueValues = new HashMap<>();
+    private boolean revalidationScheduled;
+    private final Map<Integer, ValueIndex> valueIndices = new ConcurrentHashMap<>();
+    private final Object valueIndexLock = new Object();
+    private volatile long modifications;
+    private Executor revalidationExecutor = Platform::runLater;
+    private Charset charset;
+    private boolean byteOrderMark;
+    private long fileLength;
+    private boolean lastRowIncomplete;
+
+    /**
+     * creates a model that holds all rows in memory
+     */
+    public CSVModel() {
+        this(StorageMode.HEAP);
+    }
+
+    /**
+     * creates a model that holds all rows in memory
+     *
+     * @param storageMode where the cells are kept
+     */
+    public CSVModel(StorageMode storageMode) {
+        this.store = new CellStore(storageMode);
+        this.store.setChangeListener(this::valueChanged);
+        this.rows = FXCollections.observableArrayList();
+        this.rows.addListener(this::renumberRows);
+        this.rows.addListener(this::updateValueIndices);
+        this.rows.addListener(this::clearRemovedRows);
+    }
+
+    /**
+     * creates a model that reads its rows on demand from the given source
+     *
+     * @param rowSource the source of the stored rows
+     */
+    public CSVModel(RowSource rowSource) {
+        this.store = new CellStore(rowSource.getHeader());
+        this.store.setChangeListener(this::valueChanged);
+        this.rows = new PagedRowList(this, rowSource);
+        this.rows.addListener(this::updateValueIndices);
+        this.rows.addListener(this::clearRemovedRows);
+        this.header = rowSource.getHeader();
+    }
+
+    /**
+     * returns the source the rows are read from
+     *
+     * @return the row source or null if all rows are held in memory
+     */
+    public RowSource getRowSource() {
+        return rows instanceof PagedRowList pagedRows ? pagedRows.getSource() : null;
+    }
+
+    /**
+     * returns the row of the row source that is shown unchanged at the index, so its bytes can be
+     * copied from the file instead of being encoded again
+     *
+     * @param index the index of the row in the model
+     * @return the row of the source or -1 if the model has no row source or the row was added or changed
+     */
+    public int getUnchangedSourceRow(int index) {
+        return rows instanceof PagedRowList pagedRows ? pagedRows.unchangedSourceRow(index) : -1;
+    }
 
     /**
      * sets the validator configuration for the data revalidates
@@ -56,6 +139,7 @@ public final class CSVModel implements ColumnValueProvider {
      */
     public void setValidationConfiguration(ValidationConfiguration validationConfiguration) {
         this.validator = new Validator(validationConfiguration, this);
+        valueIndices.clear();
         revalidate();
     }
 
@@ -68,6 +152,74 @@ public final class CSVModel implements ColumnValueProvider {
         return rows;
     }
 
+    /**
+     * keeps the row numbers of the rows behind a removed or inserted row up to date,
+     * appended rows already have the right number
+     */
+    private void renumberRows(ListChangeListener.Change<? extends CSVRow> change) {
+        int from = rows.size();
+        while (change.next()) {
+            if (!change.wasUpdated() && (change.wasRemoved() || change.wasPermutated() || change.getTo() < rows.size())) {
+                from = Math.min(from, change.getFrom());
+            }
+        }
+        for (int index = from; index < rows.size(); index++) {
+            rows.get(index).setRowNumber(index);
+        }
+    }
+
+    /**
+     * moves the lines in the value indices behind a removed or inserted row and adds the values of the new rows
+     */
+    private void updateValueIndices(ListChangeListener.Change<? extends CSVRow> change) {
+        modifications++;
+        if (valueIndices.isEmpty()) return;
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                // the indices are built again when they are needed
+                valueIndices.clear();
+                return;
+            }
+            if (change.wasUpdated()) {
+                continue;
+            }
+            int from = change.getFrom();
+            int removed = change.getRemovedSize();
+            int added = change.wasAdded() ? change.getAddedSize() : 0;
+            boolean appended = removed == 0 && change.getTo() == rows.size();
+            valueIndices.forEach((column, index) -> {
+                if (!appended) {
+                    index.shiftLines(from, removed, added);
+                }
+                for (int lineNumber = from; lineNumber < from + added; lineNumber++) {
+                    index.add(rows.get(lineNumber).get(column), lineNumber);
+                }
+            });
+        }
+    }
+
+    /**
+     * releases the cells and validation errors of the removed rows and drops their changes
+     * that are not revalidated yet, so nothing of them is kept by the model
+     */
+    private void clearRemovedRows(ListChangeListener.Change<? extends CSVRow> change) {
+        Set<CSVRow> removedRows = new HashSet<>();
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                removedRows.addAll(change.getRemoved());
+            }
+            if (change.wasAdded()) {
+                // rows that are replaced by themselves are still part of the model
+                change.getAddedSubList().forEach(removedRows::remove);
+            }
+        }
+        if (removedRows.isEmpty()) return;
+        changedValues.removeIf(value -> removedRows.contains(value.getRow()));
+        for (CSVRow row : removedRows) {
+            row.getStore().clearSlot(row.getSlot());
+        }
+    }
+
     public ObservableList<ValidationError> getValidationError() {
         return validationError;
     }
@@ -78,21 +230,296 @@ public final class CSVModel implements ColumnValueProvider {
      * @return the new row
      */
     public CSVRow addRow() {
-        CSVRow row = new CSVRow();
+        CSVRow row = new CSVRow(store, store.addSlot());
         row.setRowNumber(rows.size());
         rows.add(row);
         return row;
     }
 
-    public void addValue(final CSVRow row, final String column, final String value) {
-        final CSVValue csvValue = row.addValue(column, value);
-        csvValue.valueProperty().addListener(observable -> {
-            if (validator.needsColumnValidation(column)) {
-                revalidate();
-            } else {
-                csvValue.setValidationError(validator.isValid(row.getRowNumber(), column, csvValue.getValue()));
+    /**
+     * adds a new row with the given values
+     *
+     * @param values the values in the order of the columns of the store, see {@link #getColumnIndex(String)}
+     * @return the new row
+     */
+    public CSVRow addRow(String[] values) {
+        int slot = store.addSlot();
+        store.setAll(slot, values);
+        CSVRow row = new CSVRow(store, slot);
+        row.setRowNumber(rows.size());
+        rows.add(row);
+        return row;
+    }
+
+    /**
+     * removes the rows. Adjacent rows are removed in one change, so the rows and value indices behind them
+     * are renumbered once per range and not once per row.
+     *
+     * @param indices the indices of the rows
+     */
+    public void removeRows(Collection<Integer> indices) {
+        int[] sorted = indices.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        int to = sorted.length;
+        while (to > 0) {
+            // the ranges are removed from the end, so the indices of the ranges in front stay valid
+            int from = to - 1;
+            while (from > 0 && sorted[from - 1] == sorted[from] - 1) {
+                from--;
             }
+            // clearing a sub list reaches removeRange, remove(from, to) would remove the rows one by one
+            rows.subList(sorted[from], sorted[to - 1] + 1).clear();
+            to = from;
+        }
+    }
+
+    /**
+     * returns a builder that appends rows in the order of the current header
+     *
+     * @return the row builder
+     */
+    public RowBuilder rowBuilder() {
+        return new RowBuilder(this, store, header != null ? header : new String[0]);
+    }
+
+    /**
+     * appends rows that were added to the end of the file and validates only the new rows.
+     * Old rows are only checked again in unique columns, if one of the new values was unique in them before.
+     *
+     * @param records the values of the new rows in the order of the header
+     */
+    public void appendRows(List<String[]> records) {
+        if (lastRowIncomplete && !records.isEmpty() && !rows.isEmpty()) {
+            // the record that was still being written when the file was read is complete now
+            lastRowIncomplete = false;
+            CSVRow lastRow = rows.get(rows.size() - 1);
+            String[] values = records.get(0);
+            for (int column = 0; column < header.length; column++) {
+                lastRow.set(getColumnIndex(header[column]), column < values.length ? values[column] : null);
+            }
+            records = records.subList(1, records.size());
+        }
+        int first = rows.size();
+        RowBuilder rowBuilder = rowBuilder();
+        for (String[] record : records) {
+            rowBuilder.addRow(record);
+        }
+        rowBuilder.flush();
+
+        if (!hasValidator()) return;
+        List<ValidationError> errors = new ArrayList<>();
+        Map<Integer, Set<String>> uniqueValues = new HashMap<>();
+        for (int lineNumber = first; lineNumber < rows.size(); lineNumber++) {
+            CSVRow row = rows.get(lineNumber);
+            for (int column = 0; column < row.getNumberOfColumns(); column++) {
+                String name = row.getColumnName(column);
+                String value = row.get(column);
+                validate(row, lineNumber, column, errors);
+                // empty values are never checked for uniqueness
+                if (value != null && !value.isEmpty() && validator.needsColumnValidation(name)) {
+                    uniqueValues.computeIfAbsent(column, c -> new HashSet<>()).add(value);
+                }
+            }
+        }
+        // the old rows only change from unique to not unique, if the value was in exactly one of them
+        uniqueValues.forEach((column, values) -> {
+            ValueIndex valueIndex = getValueIndex(column);
+            values.removeIf(value -> valueIndex.countLinesBefore(value, first) != 1);
         });
+        revalidateUniqueValues(uniqueValues, first);
+        validationError.addAll(errors);
+        publishValidationErrors();
+    }
+
+    private void validate(CSVRow row, int lineNumber, int column, List<ValidationError> errors) {
+        ValidationError error = validator.isValid(lineNumber, row.getColumnName(column), row.get(column));
+        row.setValidationError(column, error);
+        if (error != null) {
+            errors.add(error);
+        }
+    }
+
+    /**
+     * validates the cell again and patches its error into the validation errors
+     */
+    private void revalidate(CSVRow row, int lineNumber, int column) {
+        ValidationError oldError = row.getValidationError(column);
+        ValidationError error = validator.isValid(lineNumber, row.getColumnName(column), row.get(column));
+        row.setValidationError(column, error);
+        replaceError(oldError, error);
+    }
+
+    /**
+     * validates the cells of unique columns again, whose uniqueness changes because one of the values
+     * was added or removed somewhere else in the column
+     *
+     * @param uniqueValues the added or removed values by the index of their column
+     * @param numberOfRows the number of the first rows that are checked
+     */
+    private void revalidateUniqueValues(Map<Integer, Set<String>> uniqueValues, int numberOfRows) {
+        for (Map.Entry<Integer, Set<String>> entry : uniqueValues.entrySet()) {
+            int column = entry.getKey();
+            ValueIndex valueIndex = getValueIndex(column);
+            for (String value : entry.getValue()) {
+                for (int lineNumber : valueIndex.linesOf(value)) {
+                    if (lineNumber < numberOfRows) {
+                        revalidate(rows.get(lineNumber), lineNumber, column);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * replaces a single error, the validation errors stay sorted by their line numbers
+     *
+     * @param oldError the replaced error or null if there was none
+     * @param newError the new error or null if the error is gone
+     */
+    private void replaceError(ValidationError oldError, ValidationError newError) {
+        int index = oldError == null ? -1 : indexOfError(oldError);
+        if (index >= 0) {
+            if (newError == null) {
+                validationError.remove(index);
+            } else {
+                validationError.set(index, newError);
+            }
+        } else if (newError != null) {
+            validationError.add(firstErrorOfLine(validationError, newError.getLineNumber() + 1), newError);
+        }
+    }
+
+    private int indexOfError(ValidationError error) {
+        int lineNumber = error.getLineNumber();
+        for (int index = firstErrorOfLine(validationError, lineNumber); index < validationError.size(); index++) {
+            ValidationError current = validationError.get(index);
+            if (current == error) {
+                return index;
+            }
+            if (current.getLineNumber() != lineNumber) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param errors the errors sorted by their line numbers, the error of the header has the line number -1
+     * @param lineNumber the line number
+     * @return the index of the first error of the line or of the next line if the line has no error
+     */
+    static int firstErrorOfLine(List<ValidationError> errors, int lineNumber) {
+        int low = 0;
+        int high = errors.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (errors.get(middle).getLineNumber() < lineNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public CSVValue addValue(final CSVRow row, final String column, final String value) {
+        return row.addValue(column, value);
+    }
+
+    /**
+     * registers a listener that is informed about every changed cell of the model
+     *
+     * @param changeListener the listener
+     */
+    public void addChangeListener(CellChangeListener changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    public void removeChangeListener(CellChangeListener changeListener) {
+        changeListeners.remove(changeListener);
+    }
+
+    /**
+     * the single channel for all changed cells of the model. The listeners are informed at once,
+     * the changed cells are collected and revalidated together with the next batch.
+     */
+    void valueChanged(CSVRow row, int column, String oldValue, String newValue) {
+        for (CellChangeListener changeListener : changeListeners) {
+            changeListener.valueChanged(row, column, oldValue, newValue);
+        }
+
+        modifications++;
+        ValueIndex valueIndex = valueIndices.get(column);
+        if (valueIndex != null && row.getRowNumber() < rows.size()) {
+            valueIndex.remove(oldValue, row.getRowNumber());
+            valueIndex.add(newValue, row.getRowNumber());
+        }
+
+        if (validator == null) return;
+        changedValues.add(row.getValue(column));
+        if (validator.needsColumnValidation(row.getColumnName(column))) {
+            // the rows with the old or the new value change their uniqueness
+            Set<String> uniqueValues = changedUniqueValues.computeIfAbsent(column, c -> new HashSet<>());
+            if (oldValue != null) {
+                uniqueValues.add(oldValue);
+            }
+            if (newValue != null) {
+                uniqueValues.add(newValue);
+            }
+        }
+        if (!revalidationScheduled) {
+            revalidationScheduled = true;
+            revalidationExecutor.execute(this::revalidateChangedValues);
+        }
+    }
+
+    /**
+     * revalidates the changed cells and the cells of unique columns that have one of the old or new values
+     * and patches their errors into the validation errors
+     */
+    private void revalidateChangedValues() {
+        List<CSVValue> values = changedValues;
+        Map<Integer, Set<String>> uniqueValues = changedUniqueValues;
+        changedValues = new ArrayList<>();
+        changedUniqueValues = new HashMap<>();
+        revalidationScheduled = false;
+        if (validator == null) return;
+
+        if (revalidationService.isRunning()) {
+            // the running revalidation would publish the errors of the values before the change
+            revalidate();
+            return;
+        }
+        for (CSVValue value : values) {
+            revalidate(value.getRow(), value.getRow().getRowNumber(), value.getColumn());
+        }
+        revalidateUniqueValues(uniqueValues, rows.size());
+        publishValidationErrors();
+    }
+
+    /**
+     * sets where the changed cells are revalidated, by default on the next pulse of the fx thread
+     *
+     * @param revalidationExecutor the executor for the revalidation of changed cells
+     */
+    void setRevalidationExecutor(Executor revalidationExecutor) {
+        this.revalidationExecutor = revalidationExecutor;
+    }
+
+    /**
+     * sets the number of threads that validate the whole data
+     *
+     * @param parallelism the number of threads, by default the number of available processors
+     */
+    public void setValidationParallelism(int parallelism) {
+        revalidationService.setParallelism(parallelism);
+    }
+
+    /**
+     * stops the threads that validate the whole data, after the model is no longer shown.
+     * They are started again if the model is validated once more.
+     */
+    public void dispose() {
+        revalidationService.dispose();
     }
 
     /**
@@ -101,8 +528,33 @@ public final class CSVModel implements ColumnValueProvider {
      * @param header the headers of the columns
      */
     public void setHeader(String[] header) {
+        boolean reordered = isReordered(header);
         this.header = header;
-        revalidate();
+        store.addColumns(header);
+        if (reordered && !revalidationService.isRunning()) {
+            revalidateHeader();
+        } else {
+            revalidate();
+        }
+    }
+
+    /**
+     * the values and their errors are kept when the columns are only moved
+     */
+    private boolean isReordered(String[] newHeader) {
+        return header != null && newHeader != null && header.length == newHeader.length &&
+                new HashSet<>(Arrays.asList(header)).equals(new HashSet<>(Arrays.asList(newHeader)));
+    }
+
+    /**
+     * checks only the header again and patches its error, which is the first of the validation errors
+     */
+    private void revalidateHeader() {
+        if (!hasValidator()) return;
+        ValidationError oldError = validationError.isEmpty() || validationError.get(0).getLineNumber() >= 0 ?
+                null : validationError.get(0);
+        replaceError(oldError, validator.isHeaderValid(header));
+        publishValidationErrors();
     }
 
     /**
@@ -126,18 +578,45 @@ public final class CSVModel implements ColumnValueProvider {
      */
     public void revalidate() {
         validationError.clear();
+        publishValidationErrors();
 
         logger.info("revalidate: hasValidator -> {}", hasValidator());
 
         if (!hasValidator()) return;
+        int validatedRows = rows.size();
         revalidationService.setHeader(header);
         revalidationService.setRows(rows);
+        revalidationService.setNumberOfRows(validatedRows);
         revalidationService.setValidator(validator);
-        revalidationService.setOnSucceeded(t -> validationError.setAll(revalidationService.getValue()));
+        revalidationService.setOnSucceeded(t -> {
+            List<ValidationError> errors = new ArrayList<>(revalidationService.getValue());
+            // the rows appended in the meantime were validated on their own
+            for (int lineNumber = validatedRows; lineNumber < rows.size(); lineNumber++) {
+                CSVRow row = rows.get(lineNumber);
+                for (int column = 0; column < row.getNumberOfColumns(); column++) {
+                    if (row.getValidationError(column) != null) {
+                        errors.add(row.getValidationError(column));
+                    }
+                }
+            }
+            validationError.setAll(errors);
+            if (rows instanceof PagedRowList pagedRows) {
+                pagedRows.refreshValidationErrors(validationError);
+            }
+        });
         revalidationService.setOnFailed(t -> logger.error("revalidation service failed!"));
         revalidationService.restart();
     }
 
+    /**
+     * the pages of a paged model are also loaded by other threads, which only see the published errors
+     */
+    private void publishValidationErrors() {
+        if (rows instanceof PagedRowList pagedRows) {
+            pagedRows.publishValidationErrors(validationError);
+        }
+    }
+
     private boolean hasValidator() {
         return validator != null && validator.hasConfig();
     }
@@ -153,7 +632,159 @@ public final class CSVModel implements ColumnValueProvider {
 
     @Override
     public String getValue(int row, String column) {
-        return rows.get(row).getColumns().get(column).getValue().getValue();
+        int index = getColumnIndex(column);
+        return index < 0 ? null : getValue(row, index);
+    }
+
+    @Override
+    public String getValue(int row, int column) {
+        return rows.get(row).get(column);
+    }
+
+    /**
+     * the rows of a paged model are spread over several stores with a dictionary each,
+     * so only a model that holds all rows in memory has dictionaries for whole columns
+     */
+    @Override
+    public ValueDictionary getDictionary(int column) {
+        if (column < 0 || rows instanceof PagedRowList) {
+            return null;
+        }
+        return store.getDictionary(column);
+    }
+
+    @Override
+    public int getCode(int row, int column) {
+        return rows.get(row).getCode(column);
+    }
+
+    /**
+     * the index is built by the first request in one pass over the column and kept up to date afterwards.
+     * The rows are validated concurrently, so the other threads wait for the index that is built.
+     */
+    @Override
+    public ValueIndex getValueIndex(int column) {
+        if (column < 0) {
+            return null;
+        }
+        ValueIndex valueIndex = valueIndices.get(column);
+        if (valueIndex != null) {
+            return valueIndex;
+        }
+        synchronized (valueIndexLock) {
+            valueIndex = valueIndices.get(column);
+            if (valueIndex == null) {
+                long version = modifications;
+                valueIndex = ValueIndex.build(this, column, rows.size());
+                valueIndices.put(column, valueIndex);
+                if (modifications != version) {
+                    // a change while the column was read may have missed the index, so it is not kept
+                    valueIndices.remove(column, valueIndex);
+                }
+            }
+            return valueIndex;
+        }
+    }
+
+    /**
+     * returns the index of the column in the storage. The columns keep their
+     * index when the header is reordered.
+     *
+     * @param column the name of the column
+     * @return the index or -1 if there is no such column
+     */
+    @Override
+    public int getColumnIndex(String column) {
+        return store.getColumnIndex(column);
+    }
+
+    /**
+     * returns the names of the columns in the order of the storage
+     *
+     * @return the column names
+     */
+    public String[] getColumnNames() {
+        String[] columnNames = new String[store.getNumberOfColumns()];
+        Arrays.setAll(columnNames, store::getColumnName);
+        return columnNames;
+    }
+
+    /**
+     * returns the heap size of the stored values of the rows held in memory
+     *
+     * @return size in bytes
+     */
+    public long memoryUsage() {
+        long usage = store.memoryUsage();
+        if (rows instanceof PagedRowList pagedRows) {
+            usage += pagedRows.memoryUsage();
+        }
+        return usage;
+    }
+
+    /**
+     * returns the size of the stored values outside of the heap
+     *
+     * @return size in bytes
+     */
+    public long offHeapUsage() {
+        return store.offHeapUsage();
+    }
+
+    /**
+     * remembers how the file was encoded, so it is written back the same way
+     *
+     * @param charset the charset of the file
+     * @param byteOrderMark true if the file starts with a byte order mark
+     */
+    public void setCharset(Charset charset, boolean byteOrderMark) {
+        this.charset = charset;
+        this.byteOrderMark = byteOrderMark;
+    }
+
+    /**
+     * returns the charset the file was read with
+     *
+     * @return the charset or null if the model was not read from a file
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public boolean hasByteOrderMark() {
+        return byteOrderMark;
+    }
+
+    /**
+     * remembers how many bytes of the file are held by the model,
+     * so rows that are appended to the file later can be read on their own
+     *
+     * @param fileLength the number of bytes read from or written to the file
+     */
+    public void setFileLength(long fileLength) {
+        this.fileLength = fileLength;
+    }
+
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * remembers that the last row was read from a record that was still being written.
+     * It is behind the file length, so the first row that is appended later replaces it.
+     *
+     * @param lastRowIncomplete true if the last record of the file was not complete
+     */
+    public void setLastRowIncomplete(boolean lastRowIncomplete) {
+        this.lastRowIncomplete = lastRowIncomplete;
+    }
+
+    public boolean isLastRowIncomplete() {
+        return lastRowIncomplete;
+    }
+
+    public StorageMode getStorageMode() {
+        return store.getStorageMode();
     }
 
     @Override
@@ -26,18 +26,35 @@
 
 package ninja.javafx.smartcsv.fx.table.model;
 
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableMap;
+import ninja.javafx.smartcsv.validation.ValidationError;
+
+import java.nio.ByteBuffer;
 
 /**
  * This class represents a single row in the csv file.
+ * The values are not held by the row, it is a view on a slot of a cell store.
  */
 public class CSVRow {
-    private ObservableMap<String, ObjectProperty<CSVValue>> columns = FXCollections.observableHashMap();
+    private final CellStore store;
+    private final int slot;
     private int rowNumber;
 
+    /**
+     * creates a row with a store of its own
+     */
+    public CSVRow() {
+        this(new CellStore());
+    }
+
+    private CSVRow(CellStore store) {
+        this(store, store.addSlot());
+    }
+
+    CSVRow(CellStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
     /**
      * sets the row number
      * @param rowNumber
@@ -54,13 +71,101 @@ public class CSVRow {
         return rowNumber;
     }
 
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * returns the store that holds the values of this row
+     * @return the cell store
+     */
+    public CellStore getStore() {
+        return store;
+    }
+
+    /**
+     * returns the value of the column
+     * @param column column name
+     * @return the value or null if the row has no such column
+     */
+    public CSVValue getValue(String column) {
+        int index = store.getColumnIndex(column);
+        return index < 0 ? null : new CSVValue(this, index);
+    }
+
+    /**
+     * returns the value of the column
+     * @param column the index of the column in the store
+     * @return the value
+     */
+    public CSVValue getValue(int column) {
+        return new CSVValue(this, column);
+    }
 
     /**
-     * returns the columns with data as Map
-     * @return columns with data
+     * returns the number of columns of this row
+     * @return number of columns
      */
-    public ObservableMap<String, ObjectProperty<CSVValue>> getColumns() {
-        return columns;
+    public int getNumberOfColumns() {
+        return store.getNumberOfColumns();
+    }
+
+    /**
+     * returns the name of the column
+     * @param column the index of the column in the store
+     * @return the column name
+     */
+    public String getColumnName(int column) {
+        return store.getColumnName(column);
+    }
+
+    /**
+     * returns the text of the cell
+     * @param column the index of the column in the store
+     * @return the text
+     */
+    public String get(int column) {
+        return store.get(slot, column);
+    }
+
+    /**
+     * changes the text of the cell and informs the model about the change
+     * @param column the index of the column in the store
+     * @param value the new text
+     */
+    public void set(int column, String value) {
+        String oldValue = store.get(slot, column);
+        if (oldValue == null ? value != null : !oldValue.equals(value)) {
+            store.set(slot, column, value);
+            store.fireValueChanged(this, column, oldValue, value);
+        }
+    }
+
+    /**
+     * returns the dictionary code of the cell
+     * @param column the index of the column in the store
+     * @return the code or -1 if the cell has no value or the column is not dictionary encoded
+     */
+    public int getCode(int column) {
+        return store.getCode(slot, column);
+    }
+
+    /**
+     * copies the utf-8 bytes of the cell into the buffer, if the store keeps them
+     * @param column the index of the column in the store
+     * @param target the buffer
+     * @return the number of copied bytes, -1 if the cell has no value or {@link CellStore#NOT_COPIED}
+     */
+    public int copyUtf8(int column, ByteBuffer target) {
+        return store.copyUtf8(slot, column, target);
+    }
+
+    public ValidationError getValidationError(int column) {
+        return store.getValidationError(slot, column);
+    }
+
+    public void setValidationError(int column, ValidationError validationError) {
+        store.setValidationError(slot, column, validationError);
     }
 
     /**
@@ -69,10 +174,9 @@ public class CSVRow {
      * @param value the value to store
      */
     CSVValue addValue(String column, String value) {
-        CSVValue v = new CSVValue();
-        v.setValue(value);
-        columns.put(column, new SimpleObjectProperty<>(v));
-        return v;
+        int index = store.addColumn(column);
+        store.set(slot, index, value);
+        return new CSVValue(this, index);
     }
 
 }
@@ -26,33 +26,43 @@
 
 package ninja.javafx.smartcsv.fx.table.model;
 
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
 import ninja.javafx.smartcsv.validation.ValidationError;
 
 /**
  * The csv value represents the value of a single cell.
- * It also knows about the position (row and column)
- * and if the value is valid based on the validator.
+ * It is a view on the cell, the value and the validation state are kept by the row.
  */
 public class CSVValue {
-    private StringProperty value = new SimpleStringProperty();
-    private ValidationError valid;
+    private final CSVRow row;
+    private final int column;
+
+    CSVValue(CSVRow row, int column) {
+        this.row = row;
+        this.column = column;
+    }
 
     /**
-     * returns the real value
-     * @return the real value
+     * returns the row of this value
+     * @return the row
      */
-    public String getValue() {
-        return value.get();
+    public CSVRow getRow() {
+        return row;
+    }
+
+    /**
+     * returns the index of the column in the store of the row
+     * @return the column index
+     */
+    public int getColumn() {
+        return column;
     }
 
     /**
-     * JavaFX property representation of the real value
-     * @return property of real value
+     * returns the real value
+     * @return the real value
      */
-    public StringProperty valueProperty() {
-        return value;
+    public String getValue() {
+        return row.get(column);
     }
 
     /**
@@ -60,7 +70,7 @@ public class CSVValue {
      * @param value the real value
      */
     public void setValue(String value) {
-        this.value.set(value);
+        row.set(column, value);
     }
 
     /**
@@ -68,7 +78,7 @@ public class CSVValue {
      * @return
      */
     public ValidationError getValidationError() {
-        return valid;
+        return row.getValidationError(column);
     }
 
     /**
@@ -76,6 +86,6 @@ public class CSVValue {
      * @param valid the validation state
      */
     public void setValidationError(ValidationError valid) {
-        this.valid = valid;
+        row.setValidationError(column, valid);
     }
 }
@@ -0,0 +1,367 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import ninja.javafx.smartcsv.validation.ValidationError;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * column oriented storage of the cells of a set of rows.
+ * The rows are addressed by slots, the columns by their index. The column names are
+ * resolved to indices once, so reading a whole column does not hash the name for every row.
+ * Columns start dictionary encoded and are switched to plain storage on or off the heap,
+ * depending on the storage mode, when they turn out to have too many distinct values.
+ */
+public final class CellStore {
+
+    /**
+     * returned by {@link #copyUtf8} for values that have to be encoded from their text
+     */
+    public static final int NOT_COPIED = -2;
+
+    private final StorageMode storageMode;
+    private Arena arena;
+    private final List<String> columnNames = new ArrayList<>();
+    private final Map<String, Integer> columnIndices = new HashMap<>();
+    private final List<ColumnStorage> columns = new ArrayList<>();
+    private final Map<Long, ValidationError> validationErrors = new ConcurrentHashMap<>();
+    private CellChangeListener changeListener;
+    private int slots;
+    private int capacity;
+
+    /**
+     * creates a store with the given columns that keeps the cells on the heap
+     * @param columnNames the names of the columns
+     */
+    public CellStore(String... columnNames) {
+        this(StorageMode.HEAP, columnNames);
+    }
+
+    /**
+     * creates a store with the given columns
+     * @param storageMode where the cells of columns with many distinct values are kept
+     * @param columnNames the names of the columns
+     */
+    public CellStore(StorageMode storageMode, String... columnNames) {
+        this.storageMode = storageMode;
+        addColumns(columnNames);
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * adds the columns that are not part of the store yet
+     * @param names the names of the columns
+     */
+    public void addColumns(String... names) {
+        for (String name : names) {
+            addColumn(name);
+        }
+    }
+
+    /**
+     * adds a column if it is not part of the store yet
+     * @param name the name of the column
+     * @return the index of the column
+     */
+    public int addColumn(String name) {
+        Integer index = columnIndices.get(name);
+        if (index == null) {
+            index = columns.size();
+            columnNames.add(name);
+            ColumnStorage column = new DictionaryColumn();
+            column.ensureCapacity(capacity);
+            columns.add(column);
+            columnIndices.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * returns the index of the column
+     * @param name the name of the column
+     * @return the index or -1 if there is no column with this name
+     */
+    public int getColumnIndex(String name) {
+        Integer index = columnIndices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * returns the indices of the columns
+     * @param names the names of the columns
+     * @return the indices in the order of the names, -1 for unknown columns
+     */
+    public int[] getColumnIndices(String[] names) {
+        int[] indices = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            indices[i] = getColumnIndex(names[i]);
+        }
+        return indices;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames.get(column);
+    }
+
+    public int getNumberOfColumns() {
+        return columns.size();
+    }
+
+    /**
+     * adds a new slot for a row without values
+     * @return the slot
+     */
+    public int addSlot() {
+        return slots++;
+    }
+
+    public int getNumberOfSlots() {
+        return slots;
+    }
+
+    /**
+     * drops the values and validation errors of a slot whose row was removed.
+     * The slot itself is not used again, because the rows of a session are loaded into consecutive slots.
+     * @param slot the slot of the removed row
+     */
+    public void clearSlot(int slot) {
+        for (int column = 0; column < columns.size(); column++) {
+            validationErrors.remove(key(slot, column));
+            if (get(slot, column) != null) {
+                set(slot, column, null);
+            }
+        }
+    }
+
+    /**
+     * reserves room in all columns for the given number of slots
+     * @param capacity the expected number of slots
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            this.capacity = capacity;
+            for (ColumnStorage column : columns) {
+                column.ensureCapacity(capacity);
+            }
+        }
+    }
+
+    /**
+     * returns the value of a cell
+     * @param slot the slot of the row
+     * @param column the index of the column
+     * @return the value or null
+     */
+    public String get(int slot, int column) {
+        return columns.get(column).get(slot);
+    }
+
+    /**
+     * copies the utf-8 bytes of a cell into the buffer, if the column keeps them
+     * @param slot the slot of the row
+     * @param column the index of the column
+     * @param target the buffer
+     * @return the number of copied bytes, -1 if the cell has no value or {@link #NOT_COPIED}
+     */
+    public int copyUtf8(int slot, int column, ByteBuffer target) {
+        return columns.get(column).copyUtf8(slot, target);
+    }
+
+    /**
+     * stores the value of a cell without informing anybody
+     * @param slot the slot of the row
+     * @param column the index of the column
+     * @param value the value
+     */
+    public void set(int slot, int column, String value) {
+        if (!columns.get(column).set(slot, value)) {
+            toPlainColumn(column).set(slot, value);
+        }
+    }
+
+    /**
+     * stores the values of a row in the order of the columns
+     * @param slot the slot of the row
+     * @param values the values, missing values are stored as null
+     */
+    public void setAll(int slot, String[] values) {
+        int count = Math.min(values.length, columns.size());
+        for (int column = 0; column < count; column++) {
+            set(slot, column, values[column]);
+        }
+    }
+
+    /**
+     * loads the cells of a dictionary encoded column that was stored before, for example in a session.
+     * The values are only copied cell by cell if the column already has values.
+     * @param column the index of the column
+     * @param firstSlot the slot of the first code
+     * @param values the values of the dictionary in the order of their codes
+     * @param codes the code of each row plus one, zero for rows without a value
+     */
+    public void loadDictionaryColumn(int column, int firstSlot, String[] values, char[] codes) {
+        if (!(columns.get(column) instanceof DictionaryColumn dictionaryColumn) ||
+                !dictionaryColumn.load(firstSlot, values, codes)) {
+            for (int i = 0; i < codes.length; i++) {
+                set(firstSlot + i, column, codes[i] == 0 ? null : values[codes[i] - 1]);
+            }
+        }
+    }
+
+    /**
+     * loads the cells of a column from their utf-8 bytes into a plain storage, for example from a session
+     * @param column the index of the column
+     * @param firstSlot the slot of the first value
+     * @param lengths the number of bytes of each value, -1 for rows without a value
+     * @param bytes the memory that holds the values one after the other
+     * @param offset the offset of the first value in the memory
+     */
+    public void loadUtf8Column(int column, int firstSlot, int[] lengths, MemorySegment bytes, long offset) {
+        ColumnStorage storage = columns.get(column);
+        if (storage instanceof DictionaryColumn dictionaryColumn) {
+            if (dictionaryColumn.getDictionary().size() == 0) {
+                storage = newPlainColumn();
+                storage.ensureCapacity(Math.max(capacity, slots));
+                columns.set(column, storage);
+            } else {
+                storage = toPlainColumn(column);
+            }
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] < 0) {
+                storage.set(firstSlot + i, null);
+            } else {
+                storage.setUtf8(firstSlot + i, bytes, offset, lengths[i]);
+                offset += lengths[i];
+            }
+        }
+    }
+
+    /**
+     * returns the dictionary of the column
+     * @param column the index of the column
+     * @return the dictionary or null if the column is not dictionary encoded
+     */
+    public ValueDictionary getDictionary(int column) {
+        return columns.get(column) instanceof DictionaryColumn dictionaryColumn ? dictionaryColumn.getDictionary() : null;
+    }
+
+    /**
+     * returns the dictionary code of the value of a cell
+     * @param slot the slot of the row
+     * @param column the index of the column
+     * @return the code or -1 if the cell has no value or the column is not dictionary encoded
+     */
+    public int getCode(int slot, int column) {
+        return columns.get(column) instanceof DictionaryColumn dictionaryColumn ? dictionaryColumn.getCode(slot) : -1;
+    }
+
+    public ValidationError getValidationError(int slot, int column) {
+        return validationErrors.get(key(slot, column));
+    }
+
+    public void setValidationError(int slot, int column, ValidationError validationError) {
+        if (validationError == null) {
+            validationErrors.remove(key(slot, column));
+        } else {
+            validationErrors.put(key(slot, column), validationError);
+        }
+    }
+
+    /**
+     * returns the size of the stored values outside of the heap
+     * @return size in bytes
+     */
+    public long offHeapUsage() {
+        long usage = 0;
+        for (ColumnStorage column : columns) {
+            usage += column.offHeapUsage();
+        }
+        return usage;
+    }
+
+    /**
+     * returns the heap size of the stored values
+     * @return size in bytes
+     */
+    public long memoryUsage() {
+        long usage = 0;
+        for (ColumnStorage column : columns) {
+            usage += column.memoryUsage();
+        }
+        return usage;
+    }
+
+    /**
+     * the native memory of the arena is released when the store is no longer used
+     */
+    private ColumnStorage newPlainColumn() {
+        if (storageMode == StorageMode.OFF_HEAP) {
+            if (arena == null) {
+                arena = Arena.ofAuto();
+            }
+            return new OffHeapColumn(arena);
+        }
+        return new Utf8Column();
+    }
+
+    private ColumnStorage toPlainColumn(int column) {
+        ColumnStorage storage = columns.get(column);
+        ColumnStorage plainColumn = newPlainColumn();
+        plainColumn.ensureCapacity(Math.max(capacity, slots));
+        for (int slot = 0; slot < slots; slot++) {
+            plainColumn.set(slot, storage.get(slot));
+        }
+        columns.set(column, plainColumn);
+        return plainColumn;
+    }
+
+    void setChangeListener(CellChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    void fireValueChanged(CSVRow row, int column, String oldValue, String newValue) {
+        if (changeListener != null) {
+            changeListener.valueChanged(row, column, oldValue, newValue);
+        }
+    }
+
+    private static long key(int slot, int column) {
+        return (long) slot << 32 | column;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * storage of the values of one column, addressed by the slot of the row
+ */
+interface ColumnStorage {
+
+    /**
+     * returns the value of the row
+     * @param slot the slot of the row
+     * @return the value or null if the row has no value in this column
+     */
+    String get(int slot);
+
+    /**
+     * stores the value of the row, slots behind the last stored slot are added
+     * @param slot the slot of the row
+     * @param value the value or null
+     * @return false if the value was not stored, because the storage does not suit the values of the column
+     */
+    boolean set(int slot, String value);
+
+    /**
+     * stores the value of the row from its utf-8 bytes, plain storages that keep utf-8 copy them without decoding
+     * @param slot the slot of the row
+     * @param bytes the memory that holds the bytes
+     * @param offset the offset of the value in the memory
+     * @param length the number of bytes of the value
+     */
+    default void setUtf8(int slot, MemorySegment bytes, long offset, int length) {
+        set(slot, new String(bytes.asSlice(offset, length).toArray(JAVA_BYTE), UTF_8));
+    }
+
+    /**
+     * copies the utf-8 bytes of the value into the buffer, so a value that is written unchanged
+     * is not decoded and encoded again
+     * @param slot the slot of the row
+     * @param target the buffer
+     * @return the number of copied bytes, -1 if the row has no value or {@link CellStore#NOT_COPIED}
+     * if the value is not stored as utf-8 or does not fit into the buffer
+     */
+    default int copyUtf8(int slot, ByteBuffer target) {
+        return CellStore.NOT_COPIED;
+    }
+
+    /**
+     * reserves room for the given number of slots, so adding many rows does not grow the storage step by step
+     * @param slots the expected number of slots
+     */
+    default void ensureCapacity(int slots) {
+    }
+
+    /**
+     * returns the heap size of the stored values
+     * @return size in bytes
+     */
+    long memoryUsage();
+
+    /**
+     * returns the size of the stored values outside of the heap
+     * @return size in bytes
+     */
+    default long offHeapUsage() {
+        return 0;
+    }
+}
@@ -34,4 +34,40 @@ public interface ColumnValueProvider {
     String getValue(int row, String column);
     int getNumberOfRows();
 
+    /**
+     * resolves the column name once, so a whole column can be read without a lookup per row
+     * @param column the column name
+     * @return the index of the column or -1 if there is no such column
+     */
+    int getColumnIndex(String column);
+    String getValue(int row, int column);
+
+    /**
+     * returns the dictionary of the column, if all values of the column are dictionary encoded
+     * @param column the index of the column
+     * @return the dictionary or null
+     */
+    default ValueDictionary getDictionary(int column) {
+        return null;
+    }
+
+    /**
+     * returns the code of the value in the dictionary of the column
+     * @param row the row
+     * @param column the index of the column
+     * @return the code or -1 if the cell has no value or the column is not dictionary encoded
+     */
+    default int getCode(int row, int column) {
+        return -1;
+    }
+
+    /**
+     * returns the index of the lines of the values in the column
+     * @param column the index of the column
+     * @return the index or null if the column has to be read to find a value
+     */
+    default ValueIndex getValueIndex(int column) {
+        return null;
+    }
+
 }
@@ -0,0 +1,152 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.util.Arrays;
+
+/**
+ * column that stores a code per cell and every distinct value only once in a dictionary.
+ * The first values of the column are a sample to estimate the number of distinct values.
+ * If most of them occur only once, or the dictionary gets full later on, the column refuses
+ * new values and has to be replaced by a plain storage.
+ */
+final class DictionaryColumn implements ColumnStorage {
+
+    static final int SAMPLE_SIZE = 1000;
+    static final int MAX_SIZE = Character.MAX_VALUE;
+
+    private final ValueDictionary dictionary = new ValueDictionary();
+    // the code of a cell plus one, zero is used for cells without a value
+    private char[] codes = new char[16];
+    private int slots;
+    private int stored;
+    // how often the values of the sample occur, dropped when the sample is complete
+    private int[] occurrences = new int[16];
+
+    @Override
+    public String get(int slot) {
+        int code = getCode(slot);
+        return code < 0 ? null : dictionary.get(code);
+    }
+
+    /**
+     * returns the code of the value of the row
+     * @param slot the slot of the row
+     * @return the code or -1 if the row has no value in this column
+     */
+    int getCode(int slot) {
+        return slot < slots ? codes[slot] - 1 : -1;
+    }
+
+    ValueDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public boolean set(int slot, String value) {
+        if (stored == SAMPLE_SIZE && occurrences != null) {
+            if (sampleHasHighCardinality()) {
+                return false;
+            }
+            occurrences = null;
+        }
+
+        int code = -1;
+        if (value != null) {
+            code = dictionary.codeOf(value);
+            if (code < 0) {
+                if (dictionary.size() == MAX_SIZE) {
+                    return false;
+                }
+                code = dictionary.add(value);
+            }
+            if (occurrences != null) {
+                if (code == occurrences.length) {
+                    occurrences = Arrays.copyOf(occurrences, code * 2);
+                }
+                occurrences[code]++;
+            }
+        }
+
+        if (slot >= codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(slot + 1, codes.length + (codes.length >> 1)));
+        }
+        slots = Math.max(slots, slot + 1);
+        codes[slot] = (char) (code + 1);
+        stored++;
+        return true;
+    }
+
+    /**
+     * takes over the values and codes of a column that was stored before, the column must not have values yet
+     * @param firstSlot the slot of the first code
+     * @param values the values of the dictionary in the order of their codes
+     * @param codes the code of each row plus one, zero for rows without a value
+     * @return false if the column already has values
+     */
+    boolean load(int firstSlot, String[] values, char[] codes) {
+        if (dictionary.size() > 0 || values.length > MAX_SIZE) {
+            return false;
+        }
+        for (String value : values) {
+            dictionary.add(value);
+        }
+        ensureCapacity(firstSlot + codes.length);
+        System.arraycopy(codes, 0, this.codes, firstSlot, codes.length);
+        slots = Math.max(slots, firstSlot + codes.length);
+        stored += codes.length;
+        // the column was already sampled when it was stored
+        occurrences = null;
+        return true;
+    }
+
+    @Override
+    public void ensureCapacity(int slots) {
+        if (slots > codes.length) {
+            codes = Arrays.copyOf(codes, slots);
+        }
+    }
+
+    /**
+     * a sample in which more than half of the values are unique points to a column
+     * with more distinct values than a dictionary can hold efficiently
+     */
+    private boolean sampleHasHighCardinality() {
+        int unique = 0;
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (occurrences[code] == 1) {
+                unique++;
+            }
+        }
+        return unique > SAMPLE_SIZE / 2;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return (long) codes.length * Character.BYTES + dictionary.memoryUsage();
+    }
+}
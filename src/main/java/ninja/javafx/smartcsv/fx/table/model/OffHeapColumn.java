@@ -0,0 +1,235 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * column that stores its values in native memory. The bytes of the values are appended to blocks
+ * and a table of offsets addresses them by slot, both are allocated in the arena of the store.
+ * Values that only contain latin-1 characters are stored with one byte per character, because
+ * they can be turned into a string without a charset decoder, all others are stored as utf-8.
+ * A value is only decoded when it is read.
+ */
+final class OffHeapColumn implements ColumnStorage {
+
+    private static final int BLOCK_SHIFT = 20;
+    private static final int MAX_BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int MIN_BLOCK_SIZE = 4096;
+    private static final int TABLE_SHIFT = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_SHIFT;
+    private static final long NO_VALUE = -1;
+
+    private final Arena arena;
+    private volatile MemorySegment[] blocks = new MemorySegment[0];
+    private volatile MemorySegment[] offsetTables = new MemorySegment[0];
+    private volatile int slots;
+    private long position;
+    private long limit;
+
+    OffHeapColumn(Arena arena) {
+        this.arena = arena;
+    }
+
+    @Override
+    public String get(int slot) {
+        if (slot >= slots) {
+            return null;
+        }
+        long address = offsetTables[slot >>> TABLE_SHIFT].getAtIndex(JAVA_LONG, slot & (TABLE_SIZE - 1));
+        if (address == NO_VALUE) {
+            return null;
+        }
+        MemorySegment block = blocks[(int) (address >>> BLOCK_SHIFT)];
+        long offset = address & (MAX_BLOCK_SIZE - 1);
+        int header = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = block.get(JAVA_BYTE, offset++);
+            header |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        byte[] bytes = new byte[header >>> 1];
+        MemorySegment.copy(block, JAVA_BYTE, offset, bytes, 0, bytes.length);
+        return new String(bytes, (header & 1) != 0 ? ISO_8859_1 : UTF_8);
+    }
+
+    /**
+     * latin-1 values are only copied if they are plain ascii, which is the same in utf-8
+     */
+    @Override
+    public int copyUtf8(int slot, ByteBuffer target) {
+        if (slot >= slots) {
+            return -1;
+        }
+        long address = offsetTables[slot >>> TABLE_SHIFT].getAtIndex(JAVA_LONG, slot & (TABLE_SIZE - 1));
+        if (address == NO_VALUE) {
+            return -1;
+        }
+        MemorySegment block = blocks[(int) (address >>> BLOCK_SHIFT)];
+        long offset = address & (MAX_BLOCK_SIZE - 1);
+        int header = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = block.get(JAVA_BYTE, offset++);
+            header |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        int length = header >>> 1;
+        if (length > target.remaining()) {
+            return CellStore.NOT_COPIED;
+        }
+        int start = target.position();
+        MemorySegment.copy(block, offset, MemorySegment.ofBuffer(target), 0, length);
+        if ((header & 1) != 0) {
+            for (int i = start; i < start + length; i++) {
+                if (target.get(i) < 0) {
+                    return CellStore.NOT_COPIED;
+                }
+            }
+        }
+        target.position(start + length);
+        return length;
+    }
+
+    @Override
+    public boolean set(int slot, String value) {
+        setAddress(slot, value == null ? NO_VALUE : append(value));
+        return true;
+    }
+
+    /**
+     * the bytes are kept as utf-8, even if the value only contains latin-1 characters
+     */
+    @Override
+    public void setUtf8(int slot, MemorySegment bytes, long offset, int length) {
+        MemorySegment block = reserve(length);
+        long address = (long) (blocks.length - 1) << BLOCK_SHIFT | position;
+        writeHeader(block, length << 1);
+        MemorySegment.copy(bytes, offset, block, position, length);
+        position += length;
+        setAddress(slot, address);
+    }
+
+    private void setAddress(int slot, long address) {
+        int table = slot >>> TABLE_SHIFT;
+        if (table >= offsetTables.length) {
+            MemorySegment[] newTables = Arrays.copyOf(offsetTables, table + 1);
+            for (int i = offsetTables.length; i < newTables.length; i++) {
+                newTables[i] = arena.allocate((long) TABLE_SIZE * Long.BYTES, Long.BYTES);
+                // all bits set is NO_VALUE
+                newTables[i].fill((byte) 0xff);
+            }
+            offsetTables = newTables;
+        }
+        offsetTables[table].setAtIndex(JAVA_LONG, slot & (TABLE_SIZE - 1), address);
+        if (slot >= slots) {
+            slots = slot + 1;
+        }
+    }
+
+    private long append(String value) {
+        boolean latin1 = isLatin1(value);
+        byte[] bytes = value.getBytes(latin1 ? ISO_8859_1 : UTF_8);
+        int header = bytes.length << 1 | (latin1 ? 1 : 0);
+        MemorySegment block = reserve(bytes.length);
+        long address = (long) (blocks.length - 1) << BLOCK_SHIFT | position;
+        writeHeader(block, header);
+        MemorySegment.copy(bytes, 0, block, JAVA_BYTE, position, bytes.length);
+        position += bytes.length;
+        return address;
+    }
+
+    /**
+     * returns the block with room for the value and its header
+     */
+    private MemorySegment reserve(int length) {
+        int needed = length + 5;
+        if (position + needed > limit) {
+            newBlock(needed);
+        }
+        return blocks[blocks.length - 1];
+    }
+
+    private void writeHeader(MemorySegment block, int header) {
+        while (header >= 0x80 || header < 0) {
+            block.set(JAVA_BYTE, position++, (byte) (header | 0x80));
+            header >>>= 7;
+        }
+        block.set(JAVA_BYTE, position++, (byte) header);
+    }
+
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the blocks grow from a few kilobytes up to the maximum size, so small columns stay small.
+     * A value that does not fit into a block of maximum size gets a block of its own.
+     */
+    private void newBlock(int needed) {
+        long size = Math.max(Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, limit * 2)), needed);
+        MemorySegment[] newBlocks = Arrays.copyOf(blocks, blocks.length + 1);
+        newBlocks[newBlocks.length - 1] = arena.allocate(size);
+        blocks = newBlocks;
+        position = 0;
+        // an oversized value fills its block beyond the limit, so the next value starts a new block
+        limit = Math.min(size, MAX_BLOCK_SIZE);
+    }
+
+    @Override
+    public long memoryUsage() {
+        // only the arrays that reference the segments are on the heap
+        return (long) (blocks.length + offsetTables.length) * 16;
+    }
+
+    @Override
+    public long offHeapUsage() {
+        long usage = (long) offsetTables.length * TABLE_SIZE * Long.BYTES;
+        for (MemorySegment block : blocks) {
+            usage += block.byteSize();
+        }
+        return usage;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import javafx.collections.ModifiableObservableListBase;
+import ninja.javafx.smartcsv.validation.ValidationError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * row list of a model that reads its rows page by page from a row source.
+ * Only recently used pages are held in memory, pages with changed values are pinned until the model is dropped.
+ * New rows can only be appended at the end of the list.
+ */
+final class PagedRowList extends ModifiableObservableListBase<CSVRow> {
+
+    static final int PAGE_SIZE = 1024;
+    static final int MAX_CACHED_PAGES = 64;
+
+    private final CSVModel model;
+    private final RowSource source;
+    private final String[] columns;
+    private final int storedRows;
+    private final List<CSVRow> appendedRows = new ArrayList<>();
+    private final Map<Integer, CSVRow[]> pinnedPages = new HashMap<>();
+    // the ids of the stored rows with changed values, all others are still the same as in the source
+    private final BitSet changedRows = new BitSet();
+    private final Map<Integer, CSVRow[]> cachedPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CSVRow[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    /**
+     * maps the list index to the row id, ids behind the stored rows are appended rows.
+     * It is null as long as no row is removed, the ids are always in ascending order.
+     */
+    private int[] order;
+    private int size;
+
+    /**
+     * the validation errors of the model, published by the fx thread, because pages are also loaded
+     * by the threads that validate or save the rows
+     */
+    private volatile List<ValidationError> validationErrors = List.of();
+
+    PagedRowList(CSVModel model, RowSource source) {
+        this.model = model;
+        this.source = source;
+        this.columns = source.getHeader().clone();
+        this.storedRows = source.getNumberOfRows();
+        this.size = storedRows;
+    }
+
+    RowSource getSource() {
+        return source;
+    }
+
+    @Override
+    public synchronized CSVRow get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is not in list of " + size + " rows");
+        }
+        return rowOfId(idAt(index));
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    protected synchronized void doAdd(int index, CSVRow element) {
+        if (index != size) {
+            throw new UnsupportedOperationException("rows can only be appended to a paged model");
+        }
+        int id = storedRows + appendedRows.size();
+        appendedRows.add(element);
+        if (order != null) {
+            ensureOrderCapacity(size + 1);
+            order[size] = id;
+        }
+        size++;
+    }
+
+    @Override
+    protected CSVRow doSet(int index, CSVRow element) {
+        throw new UnsupportedOperationException("rows of a paged model cannot be replaced");
+    }
+
+    @Override
+    protected synchronized CSVRow doRemove(int index) {
+        CSVRow removed = get(index);
+        removeIds(index, index + 1);
+        return removed;
+    }
+
+    @Override
+    public void remove(int fromIndex, int toIndex) {
+        removeRange(fromIndex, toIndex);
+    }
+
+    /**
+     * removes the rows in one step, so the ids behind them are moved only once
+     */
+    @Override
+    protected synchronized void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("range " + fromIndex + " to " + toIndex +
+                    " is not in list of " + size + " rows");
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+        List<CSVRow> removed = new ArrayList<>(toIndex - fromIndex);
+        for (int index = fromIndex; index < toIndex; index++) {
+            removed.add(get(index));
+        }
+        modCount++;
+        beginChange();
+        removeIds(fromIndex, toIndex);
+        nextRemove(fromIndex, removed);
+        endChange();
+    }
+
+    /**
+     * returns the number of structural changes of the list, a removed range counts as one change
+     */
+    synchronized int getModCount() {
+        return modCount;
+    }
+
+    private void removeIds(int fromIndex, int toIndex) {
+        if (order == null) {
+            order = new int[size];
+            Arrays.setAll(order, i -> i);
+        }
+        System.arraycopy(order, toIndex, order, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        // the stored rows look up their number, only the appended rows behind have to move
+        for (int i = Math.max(fromIndex, indexOfFirstAppendedRow()); i < size; i++) {
+            rowOfId(order[i]).setRowNumber(i);
+        }
+    }
+
+    /**
+     * returns the stored row that is shown unchanged at the index, without loading its page
+     * @param index the index in the list
+     * @return the row of the source or -1 if the row was appended or changed
+     */
+    synchronized int unchangedSourceRow(int index) {
+        int id = idAt(index);
+        return id >= storedRows || changedRows.get(id) ? -1 : id;
+    }
+
+    private int idAt(int index) {
+        return order == null ? index : order[index];
+    }
+
+    private synchronized int indexOfId(int id) {
+        if (order == null) {
+            return id < size ? id : -1;
+        }
+        int index = Arrays.binarySearch(order, 0, size, id);
+        return index < 0 ? -1 : index;
+    }
+
+    private int indexOfFirstAppendedRow() {
+        int index = indexOfId(storedRows);
+        return index < 0 ? size : index;
+    }
+
+    private void ensureOrderCapacity(int capacity) {
+        if (order.length < capacity) {
+            order = Arrays.copyOf(order, Math.max(capacity, order.length + (order.length >> 1)));
+        }
+    }
+
+    private CSVRow rowOfId(int id) {
+        if (id >= storedRows) {
+            return appendedRows.get(id - storedRows);
+        }
+        return page(id / PAGE_SIZE)[id % PAGE_SIZE];
+    }
+
+    private synchronized CSVRow[] page(int pageIndex) {
+        CSVRow[] page = pinnedPages.get(pageIndex);
+        if (page == null) {
+            page = cachedPages.get(pageIndex);
+        }
+        if (page == null) {
+            page = load(pageIndex);
+            cachedPages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    /**
+     * publishes the validation errors for the pages that are loaded later, after they were patched by the fx thread
+     */
+    void publishValidationErrors(List<ValidationError> errors) {
+        validationErrors = List.copyOf(errors);
+    }
+
+    /**
+     * updates the validation states of all pages in memory after the validation errors of the model changed
+     */
+    synchronized void refreshValidationErrors(List<ValidationError> errors) {
+        publishValidationErrors(errors);
+        pinnedPages.forEach((pageIndex, page) -> applyValidationErrors(pageIndex * PAGE_SIZE, page));
+        cachedPages.forEach((pageIndex, page) -> applyValidationErrors(pageIndex * PAGE_SIZE, page));
+    }
+
+    private CSVRow[] load(int pageIndex) {
+        int firstId = pageIndex * PAGE_SIZE;
+        List<String[]> records;
+        try {
+            records = source.read(firstId, Math.min(PAGE_SIZE, storedRows - firstId));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        CellStore store = new CellStore(columns);
+        CSVRow[] page = new CSVRow[records.size()];
+        store.setChangeListener((row, column, oldValue, newValue) -> {
+            pin(pageIndex, page, row.getSlot(), column, newValue);
+            model.valueChanged(row, column, oldValue, newValue);
+        });
+        for (int i = 0; i < page.length; i++) {
+            int slot = store.addSlot();
+            store.setAll(slot, records.get(i));
+            page[i] = new PagedRow(store, slot, firstId + slot);
+        }
+        applyValidationErrors(firstId, page);
+        return page;
+    }
+
+    /**
+     * returns the heap size of the values of the pages in memory
+     */
+    synchronized long memoryUsage() {
+        long usage = 0;
+        for (CSVRow[] page : pinnedPages.values()) {
+            usage += page.length > 0 ? page[0].getStore().memoryUsage() : 0;
+        }
+        for (CSVRow[] page : cachedPages.values()) {
+            usage += page.length > 0 ? page[0].getStore().memoryUsage() : 0;
+        }
+        return usage;
+    }
+
+    /**
+     * keeps the page of the changed row. The table may still show the rows of a page that was already evicted,
+     * so a change of an evicted copy is also applied to the copy that the list returns. That is the cached copy,
+     * which is pinned and not replaced by the changed one, so the rows the table got from the list stay current.
+     */
+    private synchronized void pin(int pageIndex, CSVRow[] page, int slot, int column, String value) {
+        changedRows.set(pageIndex * PAGE_SIZE + slot);
+        CSVRow[] pinnedPage = pinnedPages.get(pageIndex);
+        if (pinnedPage == null) {
+            pinnedPage = cachedPages.remove(pageIndex);
+            if (pinnedPage == null) {
+                pinnedPage = page;
+            }
+            pinnedPages.put(pageIndex, pinnedPage);
+        }
+        if (pinnedPage != page) {
+            pinnedPage[slot].getStore().set(slot, column, value);
+        }
+    }
+
+    /**
+     * the validation states of an evicted page are lost, so they are restored
+     * from the validation errors of the model when the page is loaded again
+     */
+    private void applyValidationErrors(int firstId, CSVRow[] page) {
+        List<ValidationError> errors = validationErrors;
+        for (int i = 0; i < page.length; i++) {
+            for (int column = 0; column < columns.length; column++) {
+                page[i].setValidationError(column, null);
+            }
+            int lineNumber = indexOfId(firstId + i);
+            if (lineNumber < 0) {
+                continue;
+            }
+            for (int e = CSVModel.firstErrorOfLine(errors, lineNumber); e < errors.size(); e++) {
+                ValidationError error = errors.get(e);
+                if (error.getLineNumber() != lineNumber) {
+                    break;
+                }
+                int column = page[i].getStore().getColumnIndex(error.getColumn());
+                if (column >= 0) {
+                    page[i].setValidationError(column, error);
+                }
+            }
+        }
+    }
+
+    /**
+     * a stored row looks up its number in the list, so the rows that are shared with the threads
+     * that validate or save the rows are not changed when rows are removed
+     */
+    private final class PagedRow extends CSVRow {
+        private final int id;
+
+        PagedRow(CellStore store, int slot, int id) {
+            super(store, slot);
+            this.id = id;
+        }
+
+        @Override
+        public int getRowNumber() {
+            return indexOfId(id);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * appends many rows to a model, for example while a file is read.
+ * The values are written straight into the cell store by their position in the header, and the rows
+ * are added to the model in batches, so the row list fires one change per batch and not one per row.
+ * The rows of the last batch are only part of the model after {@link #flush()}.
+ */
+public final class RowBuilder {
+
+    static final int BATCH_SIZE = 8192;
+
+    private final CSVModel model;
+    private final CellStore store;
+    private final int[] columns;
+    private final List<CSVRow> batch = new ArrayList<>(BATCH_SIZE);
+    private int slot = -1;
+
+    RowBuilder(CSVModel model, CellStore store, String[] header) {
+        this.model = model;
+        this.store = store;
+        this.columns = store.getColumnIndices(header);
+    }
+
+    /**
+     * reserves room for the given number of further rows
+     * @param rows the expected number of rows that will be added
+     */
+    public void ensureCapacity(int rows) {
+        store.ensureCapacity(store.getNumberOfSlots() + rows);
+    }
+
+    /**
+     * starts a new row without values
+     */
+    public void startRow() {
+        slot = store.addSlot();
+    }
+
+    /**
+     * sets a value of the started row
+     * @param position the position of the column in the header, values behind the header are ignored
+     * @param value the value
+     */
+    public void set(int position, String value) {
+        if (position < columns.length) {
+            store.set(slot, columns[position], value);
+        }
+    }
+
+    /**
+     * finishes the started row
+     */
+    public void endRow() {
+        CSVRow row = new CSVRow(store, slot);
+        row.setRowNumber(model.getRows().size() + batch.size());
+        batch.add(row);
+        if (batch.size() == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * adds a row with the given values
+     * @param values the values in the order of the header
+     */
+    public void addRow(String[] values) {
+        startRow();
+        int count = Math.min(values.length, columns.length);
+        for (int position = 0; position < count; position++) {
+            store.set(slot, columns[position], values[position]);
+        }
+        endRow();
+    }
+
+    /**
+     * adds rows without values, their values are loaded column by column afterwards
+     * @param count the number of rows
+     * @return the slot of the first added row
+     */
+    public int addEmptyRows(int count) {
+        flush();
+        ensureCapacity(count);
+        int firstSlot = store.getNumberOfSlots();
+        for (int i = 0; i < count; i++) {
+            startRow();
+            endRow();
+        }
+        flush();
+        return firstSlot;
+    }
+
+    /**
+     * loads the values of a dictionary encoded column of rows added by {@link #addEmptyRows(int)}
+     * @param position the position of the column in the header
+     * @param firstSlot the slot of the first row
+     * @param values the values of the dictionary in the order of their codes
+     * @param codes the code of each row plus one, zero for rows without a value
+     */
+    public void loadDictionaryColumn(int position, int firstSlot, String[] values, char[] codes) {
+        store.loadDictionaryColumn(columns[position], firstSlot, values, codes);
+    }
+
+    /**
+     * loads the values of a column of rows added by {@link #addEmptyRows(int)} from their utf-8 bytes
+     * @param position the position of the column in the header
+     * @param firstSlot the slot of the first row
+     * @param lengths the number of bytes of each value, -1 for rows without a value
+     * @param bytes the memory that holds the values one after the other
+     * @param offset the offset of the first value in the memory
+     */
+    public void loadUtf8Column(int position, int firstSlot, int[] lengths, MemorySegment bytes, long offset) {
+        store.loadUtf8Column(columns[position], firstSlot, lengths, bytes, offset);
+    }
+
+    /**
+     * adds the finished rows that are not part of the model yet
+     */
+    public void flush() {
+        if (!batch.isEmpty()) {
+            model.getRows().addAll(batch);
+            batch.clear();
+        }
+    }
+}
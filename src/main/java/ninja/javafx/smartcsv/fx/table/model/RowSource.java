@@ -0,0 +1,64 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * source of rows that are not held in memory but read on demand
+ */
+public interface RowSource {
+
+    /**
+     * returns the file the rows are read from
+     * @return the file
+     */
+    File getFile();
+
+    /**
+     * returns the columns of the stored rows in their original order
+     * @return the column names
+     */
+    String[] getHeader();
+
+    /**
+     * returns the number of stored rows
+     * @return number of rows
+     */
+    int getNumberOfRows();
+
+    /**
+     * reads a range of rows
+     * @param firstRow the first row to read
+     * @param numberOfRows the number of rows to read
+     * @return the values of the rows in the order of the header
+     * @throws IOException if the rows cannot be read
+     */
+    List<String[]> read(int firstRow, int numberOfRows) throws IOException;
+}
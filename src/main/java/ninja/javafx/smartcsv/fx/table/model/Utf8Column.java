@@ -0,0 +1,204 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * column that stores its values as utf-8 bytes in large blocks instead of one string object per cell.
+ * A cell costs the address of its bytes, a length prefix and the bytes themselves.
+ * Changed values are appended, the old bytes are left behind.
+ */
+final class Utf8Column implements ColumnStorage {
+
+    private static final int BLOCK_SHIFT = 20;
+    private static final int MAX_BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int MIN_BLOCK_SIZE = 4096;
+    private static final long NO_VALUE = -1;
+
+    private volatile byte[][] blocks = new byte[0][];
+    private long[] addresses = new long[16];
+    private int slots;
+    private int position;
+    private int limit;
+
+    @Override
+    public String get(int slot) {
+        if (slot >= slots) {
+            return null;
+        }
+        long address = addresses[slot];
+        if (address == NO_VALUE) {
+            return null;
+        }
+        byte[] block = blocks[(int) (address >>> BLOCK_SHIFT)];
+        int offset = (int) (address & (MAX_BLOCK_SIZE - 1));
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = block[offset++];
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return new String(block, offset, length, UTF_8);
+    }
+
+    @Override
+    public int copyUtf8(int slot, ByteBuffer target) {
+        if (slot >= slots || addresses[slot] == NO_VALUE) {
+            return -1;
+        }
+        long address = addresses[slot];
+        byte[] block = blocks[(int) (address >>> BLOCK_SHIFT)];
+        int offset = (int) (address & (MAX_BLOCK_SIZE - 1));
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = block[offset++];
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        if (length > target.remaining()) {
+            return CellStore.NOT_COPIED;
+        }
+        target.put(block, offset, length);
+        return length;
+    }
+
+    @Override
+    public boolean set(int slot, String value) {
+        addSlot(slot);
+        addresses[slot] = value == null ? NO_VALUE : append(value);
+        return true;
+    }
+
+    @Override
+    public void setUtf8(int slot, MemorySegment bytes, long offset, int length) {
+        addSlot(slot);
+        byte[] block = reserve(length);
+        long address = (long) (blocks.length - 1) << BLOCK_SHIFT | position;
+        writeLength(block, length);
+        MemorySegment.copy(bytes, JAVA_BYTE, offset, block, position, length);
+        position += length;
+        addresses[slot] = address;
+    }
+
+    @Override
+    public void ensureCapacity(int slots) {
+        if (slots > addresses.length) {
+            addresses = Arrays.copyOf(addresses, slots);
+        }
+    }
+
+    private void addSlot(int slot) {
+        if (slot >= addresses.length) {
+            addresses = Arrays.copyOf(addresses, Math.max(slot + 1, addresses.length + (addresses.length >> 1)));
+        }
+        if (slot >= slots) {
+            Arrays.fill(addresses, slots, slot, NO_VALUE);
+            slots = slot + 1;
+        }
+    }
+
+    /**
+     * ascii values, the most common ones, are copied char by char into the block without an encoded copy
+     */
+    private long append(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                return append(value.getBytes(UTF_8));
+            }
+        }
+        byte[] block = reserve(length);
+        long address = (long) (blocks.length - 1) << BLOCK_SHIFT | position;
+        writeLength(block, length);
+        for (int i = 0; i < length; i++) {
+            block[position++] = (byte) value.charAt(i);
+        }
+        return address;
+    }
+
+    private long append(byte[] bytes) {
+        byte[] block = reserve(bytes.length);
+        long address = (long) (blocks.length - 1) << BLOCK_SHIFT | position;
+        writeLength(block, bytes.length);
+        System.arraycopy(bytes, 0, block, position, bytes.length);
+        position += bytes.length;
+        return address;
+    }
+
+    /**
+     * returns the block with room for the value and its length prefix
+     */
+    private byte[] reserve(int length) {
+        int needed = length + 5;
+        if (position + needed > limit) {
+            newBlock(needed);
+        }
+        byte[][] currentBlocks = blocks;
+        return currentBlocks[currentBlocks.length - 1];
+    }
+
+    private void writeLength(byte[] block, int length) {
+        while (length >= 0x80) {
+            block[position++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        block[position++] = (byte) length;
+    }
+
+    /**
+     * the blocks grow from a few kilobytes up to the maximum size, so small columns stay small.
+     * A value that does not fit into a block of maximum size gets a block of its own.
+     */
+    private void newBlock(int needed) {
+        int size = Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, limit * 2));
+        byte[][] newBlocks = Arrays.copyOf(blocks, blocks.length + 1);
+        newBlocks[newBlocks.length - 1] = new byte[Math.max(size, needed)];
+        blocks = newBlocks;
+        position = 0;
+        // an oversized value fills its block beyond the limit, so the next value starts a new block
+        limit = Math.min(newBlocks[newBlocks.length - 1].length, MAX_BLOCK_SIZE);
+    }
+
+    @Override
+    public long memoryUsage() {
+        long usage = (long) addresses.length * Long.BYTES;
+        for (byte[] block : blocks) {
+            usage += block.length;
+        }
+        return usage;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the distinct values of a dictionary encoded column. Each value has a code,
+ * the codes are numbered from 0 in the order the values were added.
+ */
+public final class ValueDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    /**
+     * returns the number of distinct values
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * returns the value of the code
+     * @param code the code
+     * @return the value
+     */
+    public String get(int code) {
+        return values[code];
+    }
+
+    /**
+     * returns the code of the value
+     * @param value the value
+     * @return the code or -1 if the value is not part of the dictionary
+     */
+    public int codeOf(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * adds the value if it is not part of the dictionary yet
+     * @param value the value
+     * @return the code of the value
+     */
+    int add(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = size;
+            String[] currentValues = values;
+            if (code == currentValues.length) {
+                currentValues = Arrays.copyOf(currentValues, code * 2);
+            }
+            currentValues[code] = value;
+            values = currentValues;
+            size = code + 1;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * returns the estimated heap size of the values and the lookup table
+     * @return size in bytes
+     */
+    long memoryUsage() {
+        long usage = (long) values.length * 4;
+        for (int code = 0; code < size; code++) {
+            // string with its array and an entry in the lookup table
+            usage += 24 + 16 + values[code].length() + 48;
+        }
+        return usage;
+    }
+}
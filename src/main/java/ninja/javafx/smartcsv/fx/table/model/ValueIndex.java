@@ -0,0 +1,182 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the line numbers of the values of a column, so the other rows with the same value are found
+ * without reading the whole column. The model keeps the index up to date when cells are changed
+ * and rows are added or removed. The line numbers of a value are sorted and are never changed for a reader,
+ * they are replaced, so the index can be read while the rows are validated on other threads.
+ */
+public final class ValueIndex {
+
+    private static final int[] NO_LINES = new int[0];
+
+    private final Map<String, Lines> lineNumbers = new ConcurrentHashMap<>();
+
+    /**
+     * reads all values of the column in one pass
+     * @param provider the values
+     * @param column the index of the column
+     * @param numberOfRows the number of rows
+     * @return the index of the column
+     */
+    static ValueIndex build(ColumnValueProvider provider, int column, int numberOfRows) {
+        // the lines grow by doubling while the column is read
+        Map<String, Lines> growingLines = new HashMap<>();
+        for (int lineNumber = 0; lineNumber < numberOfRows; lineNumber++) {
+            String value = provider.getValue(lineNumber, column);
+            if (value != null) {
+                Lines lines = growingLines.get(value);
+                growingLines.put(value, lines == null ? new Lines(new int[] {lineNumber}, 1) : lines.append(lineNumber));
+            }
+        }
+        ValueIndex index = new ValueIndex();
+        index.lineNumbers.putAll(growingLines);
+        return index;
+    }
+
+    /**
+     * returns the lines with the value
+     * @param value the value
+     * @return the sorted line numbers, the array must not be changed
+     */
+    public int[] linesOf(String value) {
+        Lines lines = value == null ? null : lineNumbers.get(value);
+        return lines != null ? lines.toArray() : NO_LINES;
+    }
+
+    /**
+     * counts the lines with the value in front of the given line
+     * @param value the value
+     * @param lineNumber the first line that is not counted
+     * @return the number of lines
+     */
+    public int countLinesBefore(String value, int lineNumber) {
+        Lines lines = value == null ? null : lineNumbers.get(value);
+        if (lines == null) {
+            return 0;
+        }
+        int position = Arrays.binarySearch(lines.array, 0, lines.size, lineNumber);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    /**
+     * appended lines are written behind the lines of the value, only lines in the middle are inserted into a copy
+     */
+    void add(String value, int lineNumber) {
+        if (value == null) return;
+        lineNumbers.compute(value, (key, lines) -> {
+            if (lines == null || lines.size == 0) {
+                return new Lines(new int[] {lineNumber}, 1);
+            }
+            if (lines.array[lines.size - 1] < lineNumber) {
+                return lines.append(lineNumber);
+            }
+            int position = Arrays.binarySearch(lines.array, 0, lines.size, lineNumber);
+            if (position >= 0) {
+                return lines;
+            }
+            position = -position - 1;
+            int[] newLines = new int[lines.size + 1];
+            System.arraycopy(lines.array, 0, newLines, 0, position);
+            newLines[position] = lineNumber;
+            System.arraycopy(lines.array, position, newLines, position + 1, lines.size - position);
+            return new Lines(newLines, newLines.length);
+        });
+    }
+
+    void remove(String value, int lineNumber) {
+        if (value == null) return;
+        lineNumbers.computeIfPresent(value, (key, lines) -> {
+            int position = Arrays.binarySearch(lines.array, 0, lines.size, lineNumber);
+            if (position < 0) {
+                return lines;
+            }
+            if (lines.size == 1) {
+                return null;
+            }
+            int[] newLines = new int[lines.size - 1];
+            System.arraycopy(lines.array, 0, newLines, 0, position);
+            System.arraycopy(lines.array, position + 1, newLines, position, newLines.length - position);
+            return new Lines(newLines, newLines.length);
+        });
+    }
+
+    /**
+     * moves the lines behind the inserted or removed lines and drops the removed lines
+     * @param from the first inserted or removed line
+     * @param removed the number of removed lines
+     * @param added the number of inserted lines
+     */
+    void shiftLines(int from, int removed, int added) {
+        lineNumbers.replaceAll((value, lines) -> {
+            if (lines.size == 0 || lines.array[lines.size - 1] < from) {
+                return lines;
+            }
+            // the lines in front of the change are taken over as they are
+            int first = Arrays.binarySearch(lines.array, 0, lines.size, from);
+            first = first < 0 ? -first - 1 : first;
+            int[] newLines = Arrays.copyOf(lines.array, lines.size);
+            int size = first;
+            for (int i = first; i < lines.size; i++) {
+                int line = lines.array[i];
+                if (line >= from + removed) {
+                    newLines[size++] = line - removed + added;
+                }
+            }
+            return new Lines(newLines, size);
+        });
+        lineNumbers.values().removeIf(lines -> lines.size == 0);
+    }
+
+    /**
+     * the sorted line numbers of a value are the first elements of the array. Lines are appended
+     * into the room behind them, readers of the previous size never see these elements.
+     * All other changes copy the array, so only the latest lines of a value own their room.
+     */
+    private record Lines(int[] array, int size) {
+
+        Lines append(int lineNumber) {
+            int[] target = array;
+            if (size == target.length) {
+                target = Arrays.copyOf(array, size * 2);
+            }
+            target[size] = lineNumber;
+            return new Lines(target, size + 1);
+        }
+
+        int[] toArray() {
+            return size == array.length ? array : Arrays.copyOf(array, size);
+        }
+    }
+}
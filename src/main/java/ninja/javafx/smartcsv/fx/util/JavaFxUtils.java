@@ -54,6 +54,7 @@ public final class JavaFxUtils {
         alert.setHeaderText(errorHeader);
         alert.setContentText(findExceptionMessage(event.getSource()));
         alert.showAndWait();
+        rollbackAction.run();
     }
 
     private static String findExceptionMessage(Worker<?> source) {
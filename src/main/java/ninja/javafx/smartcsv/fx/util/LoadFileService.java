@@ -37,18 +37,31 @@ import ninja.javafx.smartcsv.files.FileStorage;
 public class LoadFileService extends Service<Void> {
 
     private FileStorage<?> file;
+    private String progressFormat = ProgressMonitorTask.DEFAULT_PROGRESS_FORMAT;
 
     public void setFileStorage(FileStorage<?> file) {
         this.file = file;
     }
 
+    public FileStorage<?> getFileStorage() {
+        return file;
+    }
+
+    /**
+     * sets the pattern of the progress message
+     * @param progressFormat message format with the arguments rows, MB/s, rows/s and remaining time
+     */
+    public void setProgressFormat(String progressFormat) {
+        this.progressFormat = progressFormat;
+    }
+
     @Override
     protected Task<Void> createTask() {
-        return new Task<>() {
+        return new ProgressMonitorTask<>(progressFormat) {
             @Override
             protected Void call() throws Exception {
                 if (file != null) {
-                    file.load();
+                    file.load(this);
                 }
                 return null;
             }
@@ -0,0 +1,101 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.util;
+
+import javafx.concurrent.Task;
+import ninja.javafx.smartcsv.ProgressMonitor;
+
+import java.text.MessageFormat;
+
+/**
+ * task that publishes the progress of a file reader or writer as progress and message.
+ * The message contains the processed rows, the throughput and the estimated remaining time.
+ */
+public abstract class ProgressMonitorTask<V> extends Task<V> implements ProgressMonitor {
+
+    /**
+     * arguments: rows, MB/s, rows/s, remaining time
+     */
+    public static final String DEFAULT_PROGRESS_FORMAT = "{0,number,integer} rows, {1,number,0.0} MB/s, {2,number,integer} rows/s, ETA {3}";
+
+    public static final String DEFAULT_SYNC_MESSAGE = "Writing to disk";
+
+    private static final long UPDATE_INTERVAL_NANOS = 200_000_000L;
+
+    private final String progressFormat;
+    private final String syncMessage;
+    private final long start = System.nanoTime();
+    private long lastUpdate;
+
+    protected ProgressMonitorTask(String progressFormat) {
+        this(progressFormat, DEFAULT_SYNC_MESSAGE);
+    }
+
+    /**
+     * @param progressFormat message format with the arguments rows, MB/s, rows/s and remaining time
+     * @param syncMessage message while the written file is synced to the disk
+     */
+    protected ProgressMonitorTask(String progressFormat, String syncMessage) {
+        this.progressFormat = progressFormat;
+        this.syncMessage = syncMessage;
+    }
+
+    @Override
+    public void update(long rows, long bytes, double fraction) {
+        long now = System.nanoTime();
+        if (now - lastUpdate < UPDATE_INTERVAL_NANOS && fraction < 1) {
+            return;
+        }
+        lastUpdate = now;
+
+        double seconds = Math.max(1e-3, (now - start) / 1e9);
+        if (fraction >= 0) {
+            updateProgress(Math.min(fraction, 1), 1);
+        } else {
+            updateProgress(-1, 1);
+        }
+        updateMessage(MessageFormat.format(progressFormat,
+                rows,
+                bytes / seconds / (1024 * 1024),
+                Math.round(rows / seconds),
+                remainingTime(seconds, fraction)));
+    }
+
+    @Override
+    public void syncing() {
+        updateProgress(-1, 1);
+        updateMessage(syncMessage);
+    }
+
+    private static String remainingTime(double seconds, double fraction) {
+        if (fraction <= 0) {
+            return "-";
+        }
+        long remaining = Math.round(seconds * (1 - fraction) / fraction);
+        return String.format("%d:%02d", remaining / 60, remaining % 60);
+    }
+}
@@ -37,21 +37,38 @@ import ninja.javafx.smartcsv.files.FileStorage;
 public class SaveFileService extends Service<Void> {
 
     private FileStorage<?> file;
+    private String progressFormat = ProgressMonitorTask.DEFAULT_PROGRESS_FORMAT;
+    private String syncMessage = ProgressMonitorTask.DEFAULT_SYNC_MESSAGE;
 
     public void setFileStorage(FileStorage<?> value) {
         file = value;
     }
 
+    /**
+     * sets the pattern of the progress message
+     * @param progressFormat message format with the arguments rows, MB/s, rows/s and remaining time
+     */
+    public void setProgressFormat(String progressFormat) {
+        this.progressFormat = progressFormat;
+    }
+
+    /**
+     * sets the message that is shown while the saved file is synced to the disk
+     * @param syncMessage the message
+     */
+    public void setSyncMessage(String syncMessage) {
+        this.syncMessage = syncMessage;
+    }
+
+    /**
+     * a failed save lets the service fail, so the user learns that the file was not saved
+     */
     @Override
     protected Task<Void> createTask() {
-        return new Task<>() {
+        return new ProgressMonitorTask<>(progressFormat, syncMessage) {
             @Override
-            protected Void call() {
-                try {
-                    file.save();
-                } catch (Throwable ex) {
-                    ex.printStackTrace();
-                }
+            protected Void call() throws Exception {
+                file.save(this);
                 return null;
             }
         };
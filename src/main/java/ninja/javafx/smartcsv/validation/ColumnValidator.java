@@ -0,0 +1,99 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.validation;
+
+import ninja.javafx.smartcsv.validation.checker.EmptyValueIsValid;
+import ninja.javafx.smartcsv.validation.checker.Validation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static ninja.javafx.smartcsv.validation.checker.Validation.Type.*;
+
+/**
+ * the rules of one column, compiled once from the configuration. A value is first checked by the rules
+ * ordered from the cheap to the expensive checks, which answer without collecting messages and stop
+ * at the first broken rule. Only a broken value is checked again by all rules in the order of the configuration,
+ * so its messages keep that order. A column whose rules all accept an empty value skips empty values
+ * with a single check instead of asking every rule.
+ */
+public final class ColumnValidator {
+
+    /**
+     * the order of the rules, by the costs of their checks
+     */
+    private static final List<Validation.Type> COSTS =
+            List.of(NOT_EMPTY, MIN_LENGTH, MAX_LENGTH, INTEGER, DOUBLE, VALUE_OF, STRING, DATE, REGEXP, UNIQUE, GROOVY);
+
+    private final String column;
+    private final Validation[] validations;
+    private final Validation[] validationsByCost;
+    private final boolean emptyValueIsValid;
+
+    ColumnValidator(String column, Collection<Validation> validations) {
+        this.column = column;
+        this.validations = validations.toArray(new Validation[0]);
+        this.validationsByCost = Arrays.stream(this.validations)
+                .sorted(Comparator.comparingInt(validation -> COSTS.indexOf(validation.getType())))
+                .toArray(Validation[]::new);
+        this.emptyValueIsValid = validations.stream().allMatch(validation -> validation instanceof EmptyValueIsValid);
+    }
+
+    /**
+     * checks the value against the rules of the column
+     *
+     * @param row the row of the value
+     * @param value the value to check
+     * @return the error with the messages of all broken rules or null if the value is valid
+     */
+    public ValidationError isValid(int row, String value) {
+        if (validations.length == 0 || (emptyValueIsValid && (value == null || value.isEmpty()))) {
+            return null;
+        }
+        if (isAcceptedByAll(row, value)) {
+            return null;
+        }
+        ValidationError error = ValidationError.withLineNumber(row).column(column);
+        for (Validation validation : validations) {
+            if (validation.canBeChecked(value)) {
+                validation.check(row, value, error);
+            }
+        }
+        return error.isEmpty() ? null : error;
+    }
+
+    private boolean isAcceptedByAll(int row, String value) {
+        for (Validation validation : validationsByCost) {
+            if (validation.canBeChecked(value) && !validation.accepts(row, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -25,18 +25,17 @@
 */
 package ninja.javafx.smartcsv.validation;
 
-import javafx.beans.property.ObjectProperty;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import ninja.javafx.smartcsv.fx.table.model.CSVRow;
-import ninja.javafx.smartcsv.fx.table.model.CSVValue;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
 
 /**
  * Service for running the validation async of the ui thread
@@ -45,9 +44,17 @@ public class RevalidationService extends Service<List<ValidationError>> {
 
     private static final Logger logger = LogManager.getLogger(RevalidationService.class);
 
+    /**
+     * number of rows that are validated by one task of the pool
+     */
+    static final int CHUNK_SIZE = 16384;
+
     private Validator validator;
     private List<CSVRow> rows;
     private String[] header;
+    private int numberOfRows = -1;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
 
     public void setValidator(Validator validator) {
         this.validator = validator;
@@ -61,50 +68,143 @@ public class RevalidationService extends Service<List<ValidationError>> {
         this.header = header;
     }
 
+    /**
+     * limits the validation to the first rows, rows that are appended later are validated on their own
+     * @param numberOfRows the number of rows to validate or -1 for all rows
+     */
+    public void setNumberOfRows(int numberOfRows) {
+        this.numberOfRows = numberOfRows;
+    }
+
+    /**
+     * sets the number of threads that validate the rows, the rows are validated in chunks
+     * that are merged in line order afterwards
+     * @param parallelism the number of threads, by default the number of available processors
+     */
+    public synchronized void setParallelism(int parallelism) {
+        if (this.parallelism != parallelism) {
+            this.parallelism = parallelism;
+            dispose();
+        }
+    }
+
+    /**
+     * shuts down the threads that validate the rows, they are started again by the next validation
+     */
+    public synchronized void dispose() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * the pool is kept by the service, so the threads are not started again for every validation
+     */
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
     @Override
     protected Task<List<ValidationError>> createTask() {
         return new Task<List<ValidationError>>() {
             @Override
             protected List<ValidationError> call() throws Exception {
-                List<ValidationError> errors = new ArrayList<>();
-                try {
-                    if (header != null) {
-                        ValidationError headerError = validator.isHeaderValid(header);
-                        if (headerError != null) {
-                            logger.info("revalidate: header error found");
-                            errors.add(headerError);
-                        }
-                    }
+                return validate(this::isCancelled);
+            }
+        };
+    }
 
-                    int maxRows = rows.size();
-                    for (int lineNumber = 0; lineNumber < maxRows; lineNumber++) {
-                        CSVRow row = rows.get(lineNumber);
-
-                        Map<String, ObjectProperty<CSVValue>> table = row.getColumns();
-                        Set<String> columns = table.keySet();
-
-                        for (String column : columns) {
-                            CSVValue value = table.get(column).getValue();
-                            if (validator != null) {
-                                ValidationError validationError = validator.isValid(lineNumber, column, value.getValue());
-                                if (validationError != null) {
-                                    logger.info("revalidate: {} errors found in line {}", validationError.getMessages().size(), lineNumber);
-                                    errors.add(validationError);
-                                    value.setValidationError(validationError);
-                                } else {
-                                    value.setValidationError(null);
-                                }
-                            } else {
-                                value.setValidationError(null);
-                            }
-                        }
-                    }
+    /**
+     * validates the header and the rows on the calling thread and the threads of the pool
+     * @param cancelled tells if the validation was cancelled
+     * @return the errors in line order
+     */
+    List<ValidationError> validate(BooleanSupplier cancelled) {
+        List<ValidationError> errors = new ArrayList<>();
+        try {
+            if (header != null) {
+                ValidationError headerError = validator.isHeaderValid(header);
+                if (headerError != null) {
+                    logger.info("revalidate: header error found");
+                    errors.add(headerError);
+                }
+            }
+
+            int maxRows = numberOfRows < 0 ? rows.size() : Math.min(numberOfRows, rows.size());
+            if (parallelism < 2 || maxRows <= CHUNK_SIZE) {
+                validateRows(0, maxRows, errors);
+            } else {
+                validateChunks(maxRows, errors, cancelled);
+            }
+
+        } catch (Throwable t) {
+            logger.error("validation error", t);
+        }
+        return errors;
+    }
 
-                } catch (Throwable t) {
-                    logger.error("validation error", t);
+    /**
+     * the chunks are joined in the order of their rows, so the errors keep the line order
+     */
+    private void validateChunks(int maxRows, List<ValidationError> errors, BooleanSupplier cancelled) {
+        var pool = pool();
+        List<ForkJoinTask<List<ValidationError>>> chunks = new ArrayList<>();
+        for (int firstRow = 0; firstRow < maxRows; firstRow += CHUNK_SIZE) {
+            int from = firstRow;
+            int to = Math.min(maxRows, firstRow + CHUNK_SIZE);
+            chunks.add(pool.submit(() -> {
+                List<ValidationError> chunkErrors = new ArrayList<>();
+                if (!cancelled.getAsBoolean()) {
+                    validateRows(from, to, chunkErrors);
                 }
-                return errors;
+                return chunkErrors;
+            }));
+        }
+        for (ForkJoinTask<List<ValidationError>> chunk : chunks) {
+            if (cancelled.getAsBoolean()) {
+                // the pool is kept, so the chunks that did not start yet are dropped
+                chunks.forEach(pending -> pending.cancel(false));
+                return;
             }
-        };
+            errors.addAll(chunk.join());
+        }
+    }
+
+    private void validateRows(int from, int to, List<ValidationError> errors) {
+        // the rules are looked up once per column and not for every cell
+        ColumnValidator[] columnValidators = new ColumnValidator[0];
+        for (int lineNumber = from; lineNumber < to; lineNumber++) {
+            CSVRow row = rows.get(lineNumber);
+            if (validator != null && columnValidators.length < row.getNumberOfColumns()) {
+                columnValidators = columnValidators(row);
+            }
+
+            for (int column = 0; column < row.getNumberOfColumns(); column++) {
+                if (validator != null) {
+                    ValidationError validationError = columnValidators[column].isValid(lineNumber, row.get(column));
+                    if (validationError != null) {
+                        logger.info("revalidate: {} errors found in line {}", validationError.getMessages().size(), lineNumber);
+                        errors.add(validationError);
+                        row.setValidationError(column, validationError);
+                    } else {
+                        row.setValidationError(column, null);
+                    }
+                } else {
+                    row.setValidationError(column, null);
+                }
+            }
+        }
+    }
+
+    private ColumnValidator[] columnValidators(CSVRow row) {
+        ColumnValidator[] columnValidators = new ColumnValidator[row.getNumberOfColumns()];
+        for (int column = 0; column < columnValidators.length; column++) {
+            columnValidators[column] = validator.getColumnValidator(row.getColumnName(column));
+        }
+        return columnValidators;
     }
-}
\ No newline at end of file
+}
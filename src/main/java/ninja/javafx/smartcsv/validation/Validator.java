@@ -33,6 +33,7 @@ import ninja.javafx.smartcsv.validation.configuration.Field;
 import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -52,7 +53,10 @@ public class Validator {
 
     private ValidationConfiguration validationConfig;
     private ColumnValueProvider columnValueProvider;
+    // the rules of a column keep the order of the configuration
     private Map<String, Map<Validation.Type, Validation>> columnValidationMap = new HashMap<>();
+    private Map<String, ColumnValidator> columnValidators = new HashMap<>();
+    private final ColumnValidator noRules = new ColumnValidator("", List.of());
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // constructors
@@ -92,22 +96,18 @@ public class Validator {
      * @return ValidationError with information if valid and if not which getMessage happened
      */
     public ValidationError isValid(Integer row, String column, String value) {
-        ValidationError result = null;
-        if (hasConfig()) {
-            ValidationError error = ValidationError.withLineNumber(row).column(column);
-            Map<Validation.Type, Validation> validationMap = columnValidationMap.get(column);
-            if (validationMap != null) {
-                for (Validation validation: validationMap.values()) {
-                    if (validation.canBeChecked(value)) {
-                        validation.check(row, value, error);
-                    }
-                }
-            }
-            if (!error.isEmpty()) {
-                result = error;
-            }
-        }
-        return result;
+        return getColumnValidator(column).isValid(row, value);
+    }
+
+    /**
+     * returns the compiled rules of the column, so the column is looked up only once
+     * when all of its values are checked
+     *
+     * @param column the column name
+     * @return the rules of the column
+     */
+    public ColumnValidator getColumnValidator(String column) {
+        return columnValidators.getOrDefault(column, noRules);
     }
 
 
@@ -118,6 +118,7 @@ public class Validator {
     public void reinitializeColumn(String column) {
         clear(column);
         initializeColumnWithRules(column);
+        compile(column);
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -127,7 +128,7 @@ public class Validator {
     private void add(String column, Validation validation) {
         Map<Validation.Type, Validation> validationMap = columnValidationMap.get(column);
         if (validationMap == null) {
-            validationMap = new HashMap<>();
+            validationMap = new LinkedHashMap<>();
             columnValidationMap.put(column, validationMap);
         }
         validationMap.put(validation.getType(), validation);
@@ -136,7 +137,7 @@ public class Validator {
     private void remove(String column, Validation.Type type) {
         Map<Validation.Type, Validation> validationMap = columnValidationMap.get(column);
         if (validationMap == null) {
-            validationMap = new HashMap<>();
+            validationMap = new LinkedHashMap<>();
             columnValidationMap.put(column, validationMap);
         }
         validationMap.remove(type);
@@ -154,6 +155,18 @@ public class Validator {
             for (Field column : validationConfig.getFields()) {
                 initializeColumnWithRules(column);
             }
+            for (String column : columnValidationMap.keySet()) {
+                compile(column);
+            }
+        }
+    }
+
+    private void compile(String column) {
+        Map<Validation.Type, Validation> validationMap = columnValidationMap.get(column);
+        if (validationMap == null || validationMap.isEmpty()) {
+            columnValidators.remove(column);
+        } else {
+            columnValidators.put(column, new ColumnValidator(column, validationMap.values()));
         }
     }
 
@@ -254,7 +267,7 @@ public class Validator {
 
             List<String> valueOfRule =  constraints.getEnumeration();
             if (valueOfRule != null && !valueOfRule.isEmpty()) {
-                add(column.getName(), new ValueOfValidation(valueOfRule));
+                add(column.getName(), new ValueOfValidation(valueOfRule, columnValueProvider, column.getName()));
             }
         }
     }
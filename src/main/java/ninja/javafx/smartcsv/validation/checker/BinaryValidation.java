@@ -36,10 +36,18 @@ public class BinaryValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
+        if (!accepts(row, value)) {
+            error.add("validation.message.binary");
+        }
+    }
+
+    @Override
+    public boolean accepts(int row, String value) {
         try {
             Base64.getDecoder().decode(value);
+            return true;
         } catch (IllegalArgumentException e) {
-            error.add("validation.message.binary");
+            return false;
         }
     }
 
@@ -43,11 +43,16 @@ public class DateValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!isDate(value, dateformat, true)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.date.format", dateformat);
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return isDate(value, dateformat, true);
+    }
+
     @Override
     public Type getType() {
         return Type.DATE;
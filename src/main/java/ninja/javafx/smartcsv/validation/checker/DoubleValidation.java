@@ -36,11 +36,16 @@ public class DoubleValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!isDouble(value)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.double");
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return isDouble(value);
+    }
+
     @Override
     public Type getType() {
         return Type.DOUBLE;
@@ -35,11 +35,16 @@ public class EmailValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!EmailValidator.getInstance().isValid(value)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.email");
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return EmailValidator.getInstance().isValid(value);
+    }
+
     @Override
     public Type getType() {
         return Type.STRING;
@@ -30,6 +30,7 @@ import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 import ninja.javafx.smartcsv.validation.ValidationError;
 import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 /**
  * Executes the given groovy as check
@@ -37,12 +38,14 @@ import org.codehaus.groovy.control.CompilationFailedException;
 public class GroovyValidation extends EmptyValueIsValid {
 
     private String groovyScript;
-    private Script script;
+    private ThreadLocal<Script> script;
 
     public GroovyValidation(String groovyScript) {
         this.groovyScript = groovyScript;
         GroovyShell shell = new GroovyShell();
-        script = shell.parse(groovyScript);
+        Class<? extends Script> scriptClass = shell.parse(groovyScript).getClass();
+        // a script keeps its binding, so the rows that are validated concurrently need an instance per thread
+        script = ThreadLocal.withInitial(() -> InvokerHelper.createScript(scriptClass, new Binding()));
     }
 
 
@@ -50,11 +53,12 @@ public class GroovyValidation extends EmptyValueIsValid {
     public void check(int row, String value, ValidationError error) {
         Binding binding = new Binding();
         binding.setVariable("value", value);
-        script.setBinding(binding);
+        Script currentScript = script.get();
+        currentScript.setBinding(binding);
 
         Object groovyResult = null;
         try {
-            groovyResult = script.run();
+            groovyResult = currentScript.run();
         } catch (CompilationFailedException e) {
             error.add("validation.message.groovy.exception", groovyScript, e.getMessage());
             e.printStackTrace();
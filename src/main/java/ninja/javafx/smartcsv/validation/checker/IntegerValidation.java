@@ -36,11 +36,16 @@ public class IntegerValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!isInt(value)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.integer");
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return isInt(value);
+    }
+
     @Override
     public Type getType() {
         return Type.INTEGER;
@@ -0,0 +1,264 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+package ninja.javafx.smartcsv.validation.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the literal text a regular expression needs in every value it matches completely.
+ * A value without the literal prefix, suffix or the longest literal part in between can not match,
+ * so it is rejected without running the pattern. A pattern that is only literal text is compared
+ * with the value. Patterns with alternatives, inline flags or escapes that are not understood
+ * here get no prefilter at all.
+ */
+final class LiteralPrefilter {
+
+    static final LiteralPrefilter NONE = new LiteralPrefilter("", "", "", null);
+
+    private final String prefix;
+    private final String suffix;
+    private final String required;
+    private final String literal;
+
+    private LiteralPrefilter(String prefix, String suffix, String required, String literal) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.required = required;
+        this.literal = literal;
+    }
+
+    /**
+     * @param regexp the regular expression, it has to match the whole value
+     * @return the prefilter of the expression or {@link #NONE}
+     */
+    static LiteralPrefilter of(String regexp) {
+        List<String> tokens = tokens(regexp);
+        if (tokens == null) {
+            return NONE;
+        }
+
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        for (String token : tokens) {
+            if (token == null) {
+                runs.add(run.toString());
+                run.setLength(0);
+            } else {
+                run.append(token);
+            }
+        }
+        runs.add(run.toString());
+
+        if (runs.size() == 1) {
+            return new LiteralPrefilter(runs.get(0), "", "", runs.get(0));
+        }
+        String required = "";
+        for (String literalRun : runs.subList(1, runs.size() - 1)) {
+            if (literalRun.length() > required.length()) {
+                required = literalRun;
+            }
+        }
+        return new LiteralPrefilter(runs.get(0), runs.get(runs.size() - 1), required, null);
+    }
+
+    /**
+     * @param value the value
+     * @return true if the value can not match the pattern
+     */
+    boolean rejects(String value) {
+        if (literal != null) {
+            return !value.equals(literal);
+        }
+        return value.length() < prefix.length() + suffix.length() ||
+                !value.startsWith(prefix) ||
+                !value.endsWith(suffix) ||
+                !value.contains(required);
+    }
+
+    /**
+     * @return true if the pattern is only literal text, so a value that is not rejected matches
+     */
+    boolean isLiteral() {
+        return literal != null;
+    }
+
+    /**
+     * splits the expression into its literal characters and null for every other part,
+     * a literal character that is followed by a quantifier is another part as well
+     *
+     * @return the tokens or null if the expression is not understood
+     */
+    private static List<String> tokens(String regexp) {
+        List<String> tokens = new ArrayList<>();
+        int length = regexp.length();
+        int i = 0;
+        while (i < length) {
+            char c = regexp.charAt(i);
+            if (Character.isSurrogate(c)) {
+                return null;
+            }
+            switch (c) {
+                case '\\' -> {
+                    if (i + 1 == length) {
+                        return null;
+                    }
+                    char escaped = regexp.charAt(i + 1);
+                    if (Character.isSurrogate(escaped)) {
+                        return null;
+                    } else if (!Character.isLetterOrDigit(escaped)) {
+                        tokens.add(String.valueOf(escaped));
+                    } else if ("tnrfae".indexOf(escaped) >= 0) {
+                        tokens.add(String.valueOf("\t\n\r\f\u0007\u001b".charAt("tnrfae".indexOf(escaped))));
+                    } else if ("dDsSwWbBhHvVRXNAGZz".indexOf(escaped) >= 0) {
+                        tokens.add(null);
+                    } else {
+                        // back references, code points, properties and quotes
+                        return null;
+                    }
+                    i += 2;
+                }
+                case '[' -> {
+                    i = endOfClass(regexp, i);
+                    tokens.add(null);
+                }
+                case '(' -> {
+                    if (regexp.startsWith("(?", i) && (i + 2 == length || ":=!<>".indexOf(regexp.charAt(i + 2)) < 0)) {
+                        // inline flags change how the following characters match
+                        return null;
+                    }
+                    i = endOfGroup(regexp, i);
+                    tokens.add(null);
+                }
+                case '?', '*', '+', '{' -> {
+                    if (tokens.isEmpty()) {
+                        return null;
+                    }
+                    tokens.set(tokens.size() - 1, null);
+                    i = endOfQuantifier(regexp, i);
+                }
+                case '^' -> {
+                    if (i != 0) {
+                        tokens.add(null);
+                    }
+                    i++;
+                }
+                case '$' -> {
+                    if (i != length - 1) {
+                        tokens.add(null);
+                    }
+                    i++;
+                }
+                case '|', ')' -> {
+                    return null;
+                }
+                case '.' -> {
+                    tokens.add(null);
+                    i++;
+                }
+                default -> {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                }
+            }
+            if (i < 0) {
+                return null;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the index behind the character class that starts at the index or -1
+     */
+    private static int endOfClass(String regexp, int start) {
+        int i = start + 1;
+        if (i < regexp.length() && regexp.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regexp.length() && regexp.charAt(i) == ']') {
+            // a bracket at the start is part of the class
+            i++;
+        }
+        int depth = 1;
+        while (i < regexp.length()) {
+            char c = regexp.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index behind the group that starts at the index or -1
+     */
+    private static int endOfGroup(String regexp, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regexp.length()) {
+            char c = regexp.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = endOfClass(regexp, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return i + 1;
+                }
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index behind the quantifier and its lazy or possessive mark or -1
+     */
+    private static int endOfQuantifier(String regexp, int start) {
+        int i = start + 1;
+        if (regexp.charAt(start) == '{') {
+            i = regexp.indexOf('}', start) + 1;
+            if (i == 0) {
+                return -1;
+            }
+        }
+        if (i < regexp.length() && (regexp.charAt(i) == '?' || regexp.charAt(i) == '+')) {
+            i++;
+        }
+        return i;
+    }
+}
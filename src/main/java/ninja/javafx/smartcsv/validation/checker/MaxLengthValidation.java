@@ -42,11 +42,16 @@ public class MaxLengthValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!maxLength(value, maxLength)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.max.length", Integer.toString(maxLength));
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return maxLength(value, maxLength);
+    }
+
     @Override
     public Type getType() {
         return Type.MAX_LENGTH;
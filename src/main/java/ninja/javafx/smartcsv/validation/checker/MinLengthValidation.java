@@ -42,11 +42,16 @@ public class MinLengthValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!minLength(value, minLength)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.min.length", Integer.toString(minLength));
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return minLength(value, minLength);
+    }
+
     @Override
     public Type getType() {
         return Type.MIN_LENGTH;
@@ -36,11 +36,16 @@ public class NotEmptyValidation implements Validation {
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (isBlankOrNull(value)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.not.empty");
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return !isBlankOrNull(value);
+    }
+
     @Override
     public Type getType() {
         return Type.NOT_EMPTY;
@@ -27,26 +27,57 @@ package ninja.javafx.smartcsv.validation.checker;
 
 import ninja.javafx.smartcsv.validation.ValidationError;
 
-import static org.apache.commons.validator.GenericValidator.matchRegexp;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
- * Checks the value against the given reg exp
+ * Checks the value against the given reg exp.
+ * The pattern is compiled once and each validating thread reuses its own matcher,
+ * values without the literal parts of the pattern are rejected without running it.
  */
 public class RegExpValidation extends EmptyValueIsValid {
 
     private String regexp;
+    private Pattern pattern;
+    private ThreadLocal<Matcher> matcher;
+    private LiteralPrefilter prefilter;
 
     public RegExpValidation(String regexp) {
+        this(regexp, true);
+    }
+
+    RegExpValidation(String regexp, boolean usePrefilter) {
         this.regexp = regexp;
+        try {
+            pattern = Pattern.compile(regexp);
+            matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+            prefilter = usePrefilter ? LiteralPrefilter.of(regexp) : LiteralPrefilter.NONE;
+        } catch (PatternSyntaxException e) {
+            // no value matches a broken pattern
+            pattern = null;
+        }
     }
 
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!matchRegexp(value, regexp)) {
+        if (!accepts(row, value)) {
             error.add("validation.message.regexp", regexp);
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return matches(value);
+    }
+
+    private boolean matches(String value) {
+        if (pattern == null || value == null || prefilter.rejects(value)) {
+            return false;
+        }
+        return prefilter.isLiteral() || matcher.get().reset(value).matches();
+    }
+
     @Override
     public Type getType() {
         return Type.REGEXP;
@@ -26,6 +26,7 @@
 package ninja.javafx.smartcsv.validation.checker;
 
 import ninja.javafx.smartcsv.fx.table.model.ColumnValueProvider;
+import ninja.javafx.smartcsv.fx.table.model.ValueIndex;
 import ninja.javafx.smartcsv.validation.ValidationError;
 
 import java.util.ArrayList;
@@ -53,11 +54,24 @@ public class UniqueValidation extends EmptyValueIsValid {
         List<Integer> lineNumbers = new ArrayList<>();
 
         int numberOfRows = columnValueProvider.getNumberOfRows();
-        for (int currentRowOfIteration = 0; currentRowOfIteration < numberOfRows; currentRowOfIteration++) {
-            String storedValue = columnValueProvider.getValue(currentRowOfIteration, column);
+        int columnIndex = columnValueProvider.getColumnIndex(column);
+        if (columnIndex < 0) {
+            return;
+        }
+        ValueIndex valueIndex = columnValueProvider.getValueIndex(columnIndex);
+        if (valueIndex != null) {
+            for (int lineNumber : valueIndex.linesOf(value)) {
+                if (lineNumber != row) {
+                    lineNumbers.add(lineNumber + 1); // show not 0 based line numbers to user
+                }
+            }
+        } else {
+            for (int currentRowOfIteration = 0; currentRowOfIteration < numberOfRows; currentRowOfIteration++) {
+                String storedValue = columnValueProvider.getValue(currentRowOfIteration, columnIndex);
 
-            if (value.equals(storedValue) && currentRowOfIteration != row) {
-                lineNumbers.add(currentRowOfIteration + 1); // show not 0 based line numbers to user
+                if (value.equals(storedValue) && currentRowOfIteration != row) {
+                    lineNumbers.add(currentRowOfIteration + 1); // show not 0 based line numbers to user
+                }
             }
         }
 
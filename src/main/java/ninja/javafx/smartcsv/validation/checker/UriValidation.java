@@ -37,10 +37,18 @@ public class UriValidation extends EmptyValueIsValid {
 
     @Override
     public void check(int row, String value, ValidationError error) {
+        if (!accepts(row, value)) {
+            error.add("validation.message.uri");
+        }
+    }
+
+    @Override
+    public boolean accepts(int row, String value) {
         try {
             new URI(value);
+            return true;
         } catch (URISyntaxException e) {
-            error.add("validation.message.uri");
+            return false;
         }
     }
 
@@ -37,10 +37,18 @@ public class UuidValidation extends EmptyValueIsValid {
     @SuppressWarnings("ResultOfMethodCallIgnored")
     @Override
     public void check(int row, String value, ValidationError error) {
+        if (!accepts(row, value)) {
+            error.add("validation.message.uuid");
+        }
+    }
+
+    @Override
+    public boolean accepts(int row, String value) {
         try {
             UUID.fromString(value);
+            return true;
         } catch (IllegalArgumentException e) {
-            error.add("validation.message.uuid");
+            return false;
         }
     }
 
@@ -36,4 +36,16 @@ public interface Validation {
     void check(int row, String value, ValidationError error);
     Type getType();
     boolean canBeChecked(String value);
+
+    /**
+     * checks the value without collecting messages, rules that can answer without an error override it
+     * @param row the row of the value
+     * @param value the value
+     * @return true if the check would not add a message
+     */
+    default boolean accepts(int row, String value) {
+        ValidationError error = ValidationError.withLineNumber(row);
+        check(row, value, error);
+        return error.isEmpty();
+    }
 }
@@ -25,31 +25,87 @@
 */
 package ninja.javafx.smartcsv.validation.checker;
 
+import ninja.javafx.smartcsv.fx.table.model.ColumnValueProvider;
+import ninja.javafx.smartcsv.fx.table.model.ValueDictionary;
 import ninja.javafx.smartcsv.validation.ValidationError;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.stream.Collectors.joining;
 
 /**
- * Checks if the value is part of a list of values
+ * Checks if the value is part of a list of values.
+ * For dictionary encoded columns the result is remembered per code,
+ * so the list is only searched once for each distinct value.
  */
 public class ValueOfValidation extends EmptyValueIsValid {
 
+    private static final byte UNKNOWN = 0;
+    private static final byte VALID = 1;
+    private static final byte INVALID = 2;
+
     private List<String> values;
+    private ColumnValueProvider columnValueProvider;
+    private String column;
+    private volatile Results results = new Results(null, new byte[0]);
 
     public ValueOfValidation(List<String> values) {
         this.values = values;
     }
 
+    public ValueOfValidation(List<String> values, ColumnValueProvider columnValueProvider, String column) {
+        this(values);
+        this.columnValueProvider = columnValueProvider;
+        this.column = column;
+    }
+
     @Override
     public void check(int row, String value, ValidationError error) {
-        if (!values.contains(value)) {
+        if (!accepts(row, value)) {
             String commaSeparated = values.stream().collect(joining(", "));
             error.add("validation.message.value.of", value, commaSeparated);
         }
     }
 
+    @Override
+    public boolean accepts(int row, String value) {
+        return isValueOf(row, value);
+    }
+
+    private boolean isValueOf(int row, String value) {
+        if (columnValueProvider == null) {
+            return values.contains(value);
+        }
+        int columnIndex = columnValueProvider.getColumnIndex(column);
+        ValueDictionary currentDictionary = columnIndex < 0 ? null : columnValueProvider.getDictionary(columnIndex);
+        int code = currentDictionary == null ? -1 : columnValueProvider.getCode(row, columnIndex);
+        // the checked value is not necessarily the stored one, only the stored value has this code
+        if (code < 0 || currentDictionary.get(code) != value) {
+            return values.contains(value);
+        }
+
+        // the rows are validated concurrently, a result that is lost when the array is replaced is just computed again
+        Results currentResults = results;
+        if (currentResults.dictionary() != currentDictionary || code >= currentResults.codes().length) {
+            byte[] codes = currentResults.dictionary() == currentDictionary ? currentResults.codes() : new byte[0];
+            currentResults = new Results(currentDictionary,
+                    Arrays.copyOf(codes, Math.max(code + 1, currentDictionary.size())));
+            results = currentResults;
+        }
+        byte[] codes = currentResults.codes();
+        if (codes[code] == UNKNOWN) {
+            codes[code] = values.contains(value) ? VALID : INVALID;
+        }
+        return codes[code] == VALID;
+    }
+
+    /**
+     * the results of the values of the dictionary, indexed by their code
+     */
+    private record Results(ValueDictionary dictionary, byte[] codes) {
+    }
+
     @Override
     public Type getType() {
         return Type.VALUE_OF;
@@ -0,0 +1,103 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * helper for the benchmarks, they are tagged with "benchmark" and only run by the benchmark task
+ */
+public final class Measurement {
+
+    private Measurement() {
+    }
+
+    /**
+     * returns the bytes allocated by the current thread so far
+     * @return allocated bytes
+     */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * returns the used heap after a few garbage collections
+     * @return used bytes
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * runs the task a few times to warm up and returns the result of the fastest run
+     * @param name the name in the report
+     * @param runs the number of runs
+     * @param task the measured task
+     * @return the fastest run
+     */
+    public static <T> Result<T> best(String name, int runs, Supplier<T> task) {
+        Result<T> best = null;
+        for (int i = 0; i < runs; i++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            T value = task.get();
+            long nanos = System.nanoTime() - start;
+            allocated = allocatedBytes() - allocated;
+            if (best == null || nanos < best.nanos()) {
+                best = new Result<>(name, value, nanos, allocated);
+            }
+        }
+        System.out.println(best);
+        return best;
+    }
+
+    /**
+     * a measured run
+     * @param name the name in the report
+     * @param value the result of the task
+     * @param nanos the duration
+     * @param allocatedBytes the bytes allocated by the measuring thread
+     */
+    public record Result<T>(String name, T value, long nanos, long allocatedBytes) {
+
+        public double millis() {
+            return nanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %10.1f ms %12.1f MB allocated", name, millis(), allocatedBytes / (1024.0 * 1024.0));
+        }
+    }
+}
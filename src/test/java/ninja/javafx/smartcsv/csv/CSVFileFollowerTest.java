@@ -0,0 +1,113 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * unit test for following the rows that are appended to a csv file
+ */
+public class CSVFileFollowerTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String HEADER = "id,name\n";
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private CSVFileFollower sut;
+
+    private final List<String[]> records = new ArrayList<>();
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void reads_only_the_appended_records() throws IOException {
+        // setup
+        Path file = follow();
+        append(file, "1,one\n2,two\n");
+
+        // execution
+        int read = sut.readAppendedRecords();
+
+        // assertion
+        assertThat(read, is(2));
+        assertThat(records.get(1), is(new String[] {"2", "two"}));
+        assertThat(sut.getOffset(), is(Files.size(file)));
+    }
+
+    @Test
+    public void waits_for_the_end_of_a_record_that_is_still_written() throws IOException {
+        // setup
+        Path file = follow();
+        append(file, "1,\"line\nbreak");
+
+        // execution
+        int first = sut.readAppendedRecords();
+        append(file, "\"\n2,");
+        int second = sut.readAppendedRecords();
+
+        // assertion
+        assertThat(first, is(0));
+        assertThat(second, is(1));
+        assertThat(records.get(0), is(new String[] {"1", "line\nbreak"}));
+        assertThat(sut.getOffset(), is(Files.size(file) - 2));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Path follow() throws IOException {
+        Path file = tempDir.resolve("growing.csv");
+        Files.writeString(file, HEADER);
+        sut = new CSVFileFollower(file.toFile(), HEADER.length(), StandardCharsets.UTF_8, records::addAll);
+        return file;
+    }
+
+    private void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardOpenOption.APPEND);
+    }
+}
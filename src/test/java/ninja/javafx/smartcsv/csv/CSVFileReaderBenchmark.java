@@ -0,0 +1,170 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import de.siegmar.fastcsv.reader.CsvRecord;
+import de.siegmar.fastcsv.reader.NamedCsvRecord;
+import ninja.javafx.smartcsv.Measurement.Result;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.RowBuilder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static ninja.javafx.smartcsv.Measurement.best;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * compares the allocations per row of the ways to add parsed records to the model.
+ * The file is parsed once up front, so only the ingestion is measured.
+ */
+@Tag("benchmark")
+public class CSVFileReaderBenchmark {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int ROWS = 500_000;
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void allocations_per_row() throws IOException {
+        // setup
+        File file = csvFile();
+        List<NamedCsvRecord> namedRecords;
+        try (var csv = CsvReader.builder().ofNamedCsvRecord(file.toPath(), UTF_8)) {
+            namedRecords = csv.stream().toList();
+        }
+        List<CsvRecord> records;
+        try (var csv = CsvReader.builder().ofCsvRecord(file.toPath(), UTF_8)) {
+            records = csv.stream().toList();
+        }
+
+        // execution
+        Result<CSVModel> named = measure("named fields, value per cell", () -> addNamed(namedRecords));
+        Result<CSVModel> arrays = measure("positional fields, array per row", () -> addArrays(records));
+        Result<CSVModel> builder = measure("row builder", () -> addWithBuilder(records));
+        best("whole file with the reader", RUNS, () -> read(file));
+
+        // assertion
+        assertThat(named.value().getNumberOfRows(), is(ROWS));
+        assertThat(arrays.value().getNumberOfRows(), is(ROWS));
+        assertThat(builder.value().getNumberOfRows(), is(ROWS));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Result<CSVModel> measure(String name, Supplier<CSVModel> ingestion) {
+        Result<CSVModel> result = best(name, RUNS, ingestion);
+        System.out.printf("%-40s %10.1f bytes per row%n", name, (double) result.allocatedBytes() / ROWS);
+        return result;
+    }
+
+    /**
+     * the way the reader used to work: a new row and a lookup by name for every cell
+     */
+    private CSVModel addNamed(List<NamedCsvRecord> records) {
+        CSVModel model = new CSVModel();
+        String[] header = records.get(0).getHeader().toArray(String[]::new);
+        model.setHeader(header);
+        for (NamedCsvRecord record : records) {
+            CSVRow row = model.addRow();
+            for (String column : header) {
+                model.addValue(row, column, record.getField(column));
+            }
+        }
+        return model;
+    }
+
+    /**
+     * positional fields that are copied into an array for every row and added one row at a time
+     */
+    private CSVModel addArrays(List<CsvRecord> records) {
+        CSVModel model = new CSVModel();
+        model.setHeader(records.get(0).getFields().toArray(String[]::new));
+        for (int i = 1; i < records.size(); i++) {
+            model.addRow(records.get(i).getFields().toArray(String[]::new));
+        }
+        return model;
+    }
+
+    private CSVModel addWithBuilder(List<CsvRecord> records) {
+        CSVModel model = new CSVModel();
+        model.setHeader(records.get(0).getFields().toArray(String[]::new));
+        RowBuilder rowBuilder = model.rowBuilder();
+        rowBuilder.ensureCapacity(records.size());
+        for (int i = 1; i < records.size(); i++) {
+            CSVFileReader.appendRecord(rowBuilder, records.get(i));
+        }
+        rowBuilder.flush();
+        return model;
+    }
+
+    private CSVModel read(File file) {
+        try {
+            CSVFileReader reader = new CSVFileReader();
+            reader.setFileEncoding("UTF-8");
+            reader.setParallelLoad(false);
+            reader.read(file);
+            return reader.getContent();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private File csvFile() throws IOException {
+        StringBuilder content = new StringBuilder("id,name,country,currency,amount,date,status,comment\n");
+        for (int i = 0; i < ROWS; i++) {
+            content.append(i).append(",customer ").append(i).append(",DE,EUR,").append(i % 10_000)
+                    .append(".").append(i % 100).append(",2024-01-").append(10 + i % 20).append(",")
+                    .append(i % 3 == 0 ? "open" : "closed").append(",some comment ").append(i % 1000).append('\n');
+        }
+        Path path = tempDir.resolve("benchmark.csv");
+        Files.writeString(path, content, UTF_8);
+        return path.toFile();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * unit test for the progress and cancellation of the csv file reader
+ */
+public class CSVFileReaderTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int NUMBER_OF_ROWS = 20000;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private CSVFileReader sut = new CSVFileReader();
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void reports_all_rows_and_bytes_when_finished() throws IOException {
+        // setup
+        File file = csvFile();
+        RecordingMonitor monitor = new RecordingMonitor(false);
+        sut.setFileEncoding("UTF-8");
+        sut.setProgressMonitor(monitor);
+
+        // execution
+        sut.read(file);
+
+        // assertion
+        assertThat(sut.getContent().getNumberOfRows(), is(NUMBER_OF_ROWS));
+        assertThat(monitor.rows, is((long) NUMBER_OF_ROWS));
+        assertThat(monitor.bytes, is(file.length()));
+        assertThat(monitor.fraction, is(1.0));
+    }
+
+    @Test
+    public void cancelled_read_drops_the_partial_model() throws IOException {
+        // setup
+        File file = csvFile();
+        sut.setFileEncoding("UTF-8");
+        sut.read(file);
+        sut.setProgressMonitor(new RecordingMonitor(true));
+
+        // execution
+        assertThrows(CancellationException.class, () -> sut.read(file));
+
+        // assertion
+        assertThat(sut.getContent(), is(nullValue()));
+    }
+
+    @Test
+    public void writes_a_file_back_with_the_detected_charset() throws IOException {
+        // setup
+        Path file = tempDir.resolve("bom.csv");
+        Files.write(file, "\uFEFFName,Stadt\nJürgen,Köln\n".getBytes(StandardCharsets.UTF_16LE));
+        sut.setFileEncoding("UTF-8");
+        sut.read(file.toFile());
+        CSVFileWriter writer = new CSVFileWriter();
+        writer.setFileEncoding("UTF-8");
+        writer.setCsvPreference(Preferences.defaultPreferences());
+        writer.setContent(sut.getContent());
+
+        // execution
+        writer.write(file.toFile());
+
+        // assertion
+        assertThat(sut.getContent().getHeader()[0], is("Name"));
+        assertThat(sut.getContent().getValue(0, "Stadt"), is("Köln"));
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_16LE), startsWith("\uFEFF"));
+    }
+
+    @Test
+    public void reads_gzip_files_and_zip_archives() throws IOException {
+        // setup
+        byte[] content = Files.readAllBytes(csvFile().toPath());
+        Path gzip = tempDir.resolve("test.csv.gz");
+        try (var output = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            output.write(content);
+        }
+        Path zip = tempDir.resolve("test.zip");
+        try (var output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            output.putNextEntry(new ZipEntry("readme.txt"));
+            output.write("no csv".getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("test.csv"));
+            output.write(content);
+        }
+        sut.setFileEncoding("UTF-8");
+
+        // execution
+        sut.read(gzip.toFile());
+        int gzipRows = sut.getContent().getNumberOfRows();
+        sut.read(zip.toFile());
+
+        // assertion
+        assertThat(gzipRows, is(NUMBER_OF_ROWS));
+        assertThat(sut.getContent().getNumberOfRows(), is(NUMBER_OF_ROWS));
+        assertThat(sut.getContent().getValue(NUMBER_OF_ROWS - 1, "name"), is("name " + (NUMBER_OF_ROWS - 1)));
+    }
+
+    @Test
+    public void hands_over_the_first_rows_before_the_rest_is_read() throws IOException {
+        // setup
+        File file = csvFile();
+        List<Integer> shownRows = new ArrayList<>();
+        sut.setFileEncoding("UTF-8");
+        sut.setProgressiveLoad(model -> shownRows.add(model.getRows().size()), Runnable::run);
+
+        // execution
+        sut.read(file);
+
+        // assertion
+        assertThat(shownRows, contains(RowPublisher.FIRST_ROWS));
+        assertThat(sut.getContent().getRows().size(), is(NUMBER_OF_ROWS));
+        assertThat(sut.getContent().getValue(NUMBER_OF_ROWS - 1, "name"), is("name " + (NUMBER_OF_ROWS - 1)));
+    }
+
+    @Test
+    public void record_that_is_still_written_is_replaced_when_the_file_is_followed() throws IOException {
+        // setup
+        Path file = tempDir.resolve("growing.csv");
+        Files.writeString(file, "id,name\n1,one\n2,tw", StandardCharsets.UTF_8);
+        sut.setFileEncoding("UTF-8");
+        sut.read(file.toFile());
+        CSVModel model = sut.getContent();
+
+        // execution
+        model.appendRows(List.of(new String[] {"2", "two"}, new String[] {"3", "three"}));
+
+        // assertion
+        assertThat(model.getFileLength(), is((long) "id,name\n1,one\n".length()));
+        assertThat(model.getNumberOfRows(), is(3));
+        assertThat(model.getValue(1, "name"), is("two"));
+        assertThat(model.getValue(2, "name"), is("three"));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private File csvFile() throws IOException {
+        StringBuilder content = new StringBuilder("id,name\n");
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            content.append(row).append(",name ").append(row).append('\n');
+        }
+        Path file = tempDir.resolve("test.csv");
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    private static class RecordingMonitor implements ProgressMonitor {
+        private final boolean cancelled;
+        private long rows;
+        private long bytes;
+        private double fraction;
+
+        RecordingMonitor(boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void update(long rows, long bytes, double fraction) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.fraction = fraction;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.writer.CsvWriter;
+import de.siegmar.fastcsv.writer.QuoteStrategies;
+import ninja.javafx.smartcsv.Measurement.Result;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static ninja.javafx.smartcsv.Measurement.best;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * compares the write throughput of a writer with a list of strings per row with the
+ * encoder that writes the cells from the store into a byte buffer, on one thread and in parallel
+ */
+@Tag("benchmark")
+public class CSVFileWriterBenchmark {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int ROWS = 500_000;
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void write_throughput() throws IOException {
+        for (StorageMode storageMode : StorageMode.values()) {
+            // setup
+            CSVModel model = model(storageMode);
+            Path lists = tempDir.resolve("lists.csv");
+            Path encoded = tempDir.resolve("encoded.csv");
+            Path parallel = tempDir.resolve("parallel.csv");
+
+            // execution
+            measure(storageMode + ", list per row", lists, () -> writeLists(model, lists));
+            measure(storageMode + ", byte buffer", encoded, () -> writeEncoded(model, encoded, false));
+            measure(storageMode + ", byte buffer, parallel", parallel, () -> writeEncoded(model, parallel, true));
+
+            // assertion
+            assertThat(Files.mismatch(lists, encoded), is(-1L));
+            assertThat(Files.mismatch(encoded, parallel), is(-1L));
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void measure(String name, Path file, Supplier<Path> write) throws IOException {
+        Result<Path> result = best(name, RUNS, write);
+        System.out.printf("%-40s %10.1f MB/s %8.1f bytes allocated per row%n", name,
+                Files.size(file) / (1024.0 * 1024.0) / (result.millis() / 1000.0),
+                (double) result.allocatedBytes() / ROWS);
+    }
+
+    /**
+     * the way the writer used to work: the values of every row are collected into a list of strings
+     */
+    private Path writeLists(CSVModel model, Path file) {
+        try (var writer = CsvWriter.builder().quoteCharacter('"').quoteStrategy(QuoteStrategies.ALWAYS)
+                .build(Files.newBufferedWriter(file, UTF_8))) {
+            String[] header = model.getHeader();
+            writer.writeRecord(header);
+            for (CSVRow row : model.getRows()) {
+                List<String> values = new ArrayList<>(header.length);
+                for (String column : header) {
+                    values.add(row.get(row.getStore().getColumnIndex(column)));
+                }
+                writer.writeRecord(values);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path writeEncoded(CSVModel model, Path file, boolean parallelWrite) {
+        try {
+            CSVFileWriter writer = new CSVFileWriter();
+            writer.setParallelWrite(parallelWrite);
+            writer.setCsvPreference(Preferences.defaultPreferences());
+            writer.setFileEncoding("UTF-8");
+            writer.setContent(model);
+            writer.write(file.toFile());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CSVModel model(StorageMode storageMode) {
+        CSVModel model = new CSVModel(storageMode);
+        model.setHeader(new String[] {"id", "name", "country", "currency", "amount", "date", "status", "comment"});
+        var rowBuilder = model.rowBuilder();
+        rowBuilder.ensureCapacity(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rowBuilder.startRow();
+            rowBuilder.set(0, String.valueOf(i));
+            rowBuilder.set(1, "customer " + i);
+            rowBuilder.set(2, "DE");
+            rowBuilder.set(3, "EUR");
+            rowBuilder.set(4, (i % 10_000) + "." + (i % 100));
+            rowBuilder.set(5, "2024-01-" + (10 + i % 20));
+            rowBuilder.set(6, i % 3 == 0 ? "open" : "closed");
+            rowBuilder.set(7, "some comment " + (i % 1000));
+            rowBuilder.endRow();
+        }
+        rowBuilder.flush();
+        return model;
+    }
+}
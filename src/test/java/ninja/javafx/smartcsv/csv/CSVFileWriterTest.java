@@ -0,0 +1,272 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * unit test for the csv file writer
+ */
+public class CSVFileWriterTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String[][] SPECIAL_ROWS = {
+            {"1", "plain"},
+            {"2", "a,b"},
+            {"3", "say \"hi\""},
+            {"#4", "line\nbreak"},
+            {"5", null},
+            {"6", "Köln"}
+    };
+    private static final int FILLER_ROWS = 2000;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private CSVFileWriter sut = new CSVFileWriter();
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void copied_and_encoded_cells_are_quoted_only_where_needed() throws IOException {
+        // setup
+        sut.setFileEncoding("UTF-8");
+        sut.setCsvPreference(new Preferences(null, ',', "\n", true));
+
+        for (int fillerRows : new int[] {0, FILLER_ROWS}) {
+            for (StorageMode storageMode : StorageMode.values()) {
+                // the filler rows turn the dictionaries into plain columns that keep utf-8 bytes
+                sut.setContent(model(storageMode, fillerRows));
+                Path file = tempDir.resolve(storageMode + "-" + fillerRows + ".csv");
+
+                // execution
+                sut.write(file.toFile());
+
+                // assertion
+                assertThat(Files.readString(file, StandardCharsets.UTF_8), is(expected(fillerRows)));
+            }
+        }
+    }
+
+    @Test
+    public void writes_the_columns_in_header_order_with_a_stateful_charset() throws IOException {
+        // setup
+        CSVModel model = model(StorageMode.HEAP, 0);
+        model.setHeader(new String[] {"name", "id"});
+        model.setCharset(StandardCharsets.UTF_16, false);
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setContent(model);
+        Path file = tempDir.resolve("utf16.csv");
+
+        // execution
+        sut.write(file.toFile());
+
+        // assertion
+        String expected = "\"name\",\"id\"\r\n\"plain\",\"1\"\r\n\"a,b\",\"2\"\r\n\"say \"\"hi\"\"\",\"3\"\r\n" +
+                "\"line\nbreak\",\"#4\"\r\n\"\",\"5\"\r\n\"Köln\",\"6\"\r\n";
+        assertThat(Files.readAllBytes(file), is(expected.getBytes(StandardCharsets.UTF_16)));
+    }
+
+    @Test
+    public void parallel_write_is_byte_identical_to_the_sequential_write() throws IOException {
+        // setup
+        sut.setFileEncoding("UTF-8");
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setContent(model(StorageMode.HEAP, 5 * CSVFileWriter.BLOCK_ROWS + 17));
+        Path sequential = tempDir.resolve("sequential.csv");
+        Path parallel = tempDir.resolve("parallel.csv");
+        sut.setParallelWrite(false);
+        sut.write(sequential.toFile());
+        sut.setParallelWrite(true);
+
+        // execution
+        sut.write(parallel.toFile());
+
+        // assertion
+        assertThat(Files.mismatch(sequential, parallel), is(-1L));
+    }
+
+    @Test
+    public void copies_the_unchanged_rows_of_a_paged_model_from_the_original_file() throws IOException {
+        // setup
+        Path original = tempDir.resolve("paged.csv");
+        Files.writeString(original, "id,name\n1,'quoted'\n2,b\n3,c\n4,d", StandardCharsets.UTF_8);
+        Preferences preferences = new Preferences('\'', ',', "\n", true);
+        CSVModel model = new CSVModel(IndexedCSVFile.open(original.toFile(),
+                CsvReader.builder().quoteCharacter('\''), preferences, StandardCharsets.UTF_8, 1, null,
+                ProgressMonitor.NONE));
+        model.setCharset(StandardCharsets.UTF_8, false);
+        CSVRow changed = model.getRows().get(1);
+        changed.set(changed.getStore().getColumnIndex("name"), "B");
+        model.getRows().remove(2);
+        model.addRow(new String[] {"5", "e"});
+        sut.setCsvPreference(preferences);
+        sut.setContent(model);
+        Path file = tempDir.resolve("saved.csv");
+
+        // execution
+        sut.write(file.toFile());
+
+        // assertion
+        assertThat(Files.readString(file, StandardCharsets.UTF_8), is("id,name\n1,'quoted'\n'2','B'\n4,d\n'5','e'\n"));
+        assertThat(model.getUnchangedSourceRow(0), is(0));
+        assertThat(model.getUnchangedSourceRow(1), is(-1));
+    }
+
+    @Test
+    public void replaces_the_file_of_a_paged_model_that_is_read_without_mapping() throws IOException {
+        // setup
+        Path original = tempDir.resolve("paged.csv");
+        Files.writeString(original, "id,name\n1,a\n2,b\n3,c\n", StandardCharsets.UTF_8);
+        CSVModel model = new CSVModel(IndexedCSVFile.open(original.toFile(),
+                CsvReader.builder(), Preferences.defaultPreferences(), StandardCharsets.UTF_8, 1, null,
+                ProgressMonitor.NONE, false));
+        model.setCharset(StandardCharsets.UTF_8, false);
+        CSVRow changed = model.getRows().get(0);
+        changed.set(changed.getStore().getColumnIndex("name"), "A");
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setContent(model);
+
+        // execution
+        sut.write(original.toFile());
+
+        // assertion
+        assertThat(Files.readString(original, StandardCharsets.UTF_8), is("id,name\n\"1\",\"A\"\n2,b\n3,c\n"));
+        assertThat(model.getValue(2, "name"), is("c"));
+    }
+
+    @Test
+    public void keeps_the_previous_version_as_backup() throws IOException {
+        // setup
+        Path file = tempDir.resolve("saved.csv");
+        Files.writeString(file, "previous version", StandardCharsets.UTF_8);
+        sut.setFileEncoding("UTF-8");
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setKeepBackup(true);
+        sut.setContent(model(StorageMode.HEAP, 0));
+
+        // execution
+        sut.write(file.toFile());
+
+        // assertion
+        assertThat(Files.readString(file, StandardCharsets.UTF_8), startsWith("\"id\",\"name\""));
+        assertThat(Files.readString(tempDir.resolve("saved.csv.bak"), StandardCharsets.UTF_8), is("previous version"));
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.count(), is(2L));
+        }
+    }
+
+    @Test
+    public void new_file_gets_the_permissions_of_any_other_new_file() throws IOException {
+        // setup
+        assumeTrue(Files.getFileStore(tempDir).supportsFileAttributeView(PosixFileAttributeView.class));
+        Path file = tempDir.resolve("new.csv");
+        Path other = Files.createFile(tempDir.resolve("other.csv"));
+        sut.setFileEncoding("UTF-8");
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setContent(model(StorageMode.HEAP, 0));
+
+        // execution
+        sut.write(file.toFile());
+
+        // assertion
+        assertThat(Files.getPosixFilePermissions(file), is(Files.getPosixFilePermissions(other)));
+    }
+
+    @Test
+    public void replaces_the_file_of_a_symbolic_link() throws IOException {
+        // setup
+        Path file = tempDir.resolve("saved.csv");
+        Files.writeString(file, "previous version", StandardCharsets.UTF_8);
+        Path link;
+        try {
+            link = Files.createSymbolicLink(tempDir.resolve("link.csv"), file);
+        } catch (UnsupportedOperationException | IOException ex) {
+            assumeTrue(false, "symbolic links are not supported");
+            return;
+        }
+        sut.setFileEncoding("UTF-8");
+        sut.setCsvPreference(Preferences.defaultPreferences());
+        sut.setContent(model(StorageMode.HEAP, 0));
+
+        // execution
+        sut.write(link.toFile());
+
+        // assertion
+        assertThat(Files.isSymbolicLink(link), is(true));
+        assertThat(Files.readString(file, StandardCharsets.UTF_8), startsWith("\"id\",\"name\""));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private CSVModel model(StorageMode storageMode, int fillerRows) {
+        CSVModel model = new CSVModel(storageMode);
+        model.setHeader(new String[] {"id", "name"});
+        for (String[] row : SPECIAL_ROWS) {
+            model.addRow(row);
+        }
+        for (int row = 0; row < fillerRows; row++) {
+            model.addRow(new String[] {"f" + row, "value " + row});
+        }
+        return model;
+    }
+
+    private String expected(int fillerRows) {
+        StringBuilder expected = new StringBuilder("id,name\r\n1,plain\r\n2,\"a,b\"\r\n3,\"say \"\"hi\"\"\"\r\n" +
+                "\"#4\",\"line\nbreak\"\r\n5,\r\n6,Köln\r\n");
+        for (int row = 0; row < fillerRows; row++) {
+            expected.append("f").append(row).append(",value ").append(row).append("\r\n");
+        }
+        return expected.toString();
+    }
+}
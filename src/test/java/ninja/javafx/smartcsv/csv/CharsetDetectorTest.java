@@ -0,0 +1,99 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.csv.CharsetDetector.DetectedCharset;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * unit test for the detection of the charset of csv files
+ */
+public class CharsetDetectorTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String CONTENT = "Name,Stadt\nJürgen,Köln\n";
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void byte_order_mark_wins() {
+        // setup
+        byte[] sample = ("\uFEFF" + CONTENT).getBytes(StandardCharsets.UTF_16LE);
+
+        // execution
+        DetectedCharset detected = detect(sample, StandardCharsets.ISO_8859_1);
+
+        // assertion
+        assertThat(detected.charset(), is(StandardCharsets.UTF_16LE));
+        assertThat(detected.byteOrderMarkLength(), is(2));
+    }
+
+    @Test
+    public void valid_utf8_is_utf8() {
+        // execution
+        DetectedCharset detected = detect(CONTENT.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+
+        // assertion
+        assertThat(detected.charset(), is(StandardCharsets.UTF_8));
+        assertThat(detected.hasByteOrderMark(), is(false));
+    }
+
+    @Test
+    public void ascii_keeps_the_configured_charset() {
+        // execution
+        DetectedCharset detected = detect("a,b\n1,2\n".getBytes(StandardCharsets.US_ASCII), StandardCharsets.ISO_8859_1);
+
+        // assertion
+        assertThat(detected.charset(), is(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void invalid_utf8_falls_back_to_a_single_byte_charset() {
+        // execution
+        DetectedCharset detected = detect(CONTENT.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+
+        // assertion
+        assertThat(detected.charset(), is(Charset.forName("windows-1252")));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private DetectedCharset detect(byte[] sample, Charset configured) {
+        return CharsetDetector.detect(sample, sample.length, false, configured);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ninja.javafx.smartcsv.preferences.Preferences.defaultPreferences;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * unit test for the parallel chunked csv parser
+ */
+public class ChunkedCSVParserTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String CSV = """
+            id,name,comment
+            1,"Doe, John","multi
+            line ""quoted"" value"
+            2,Smith,plain\r
+            3,"",
+            4,Müller,"ends with line break
+            "
+            5,"a,b,c",last
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @ParameterizedTest
+    @ValueSource(longs = {1, 5, 17, 64, 1024})
+    public void chunked_parse_has_same_rows_as_sequential_read(long chunkSize) throws IOException {
+        // setup
+        File file = csvFile(CSV);
+        CSVModel expected = readSequential(file);
+
+        // execution
+        CSVModel result = parser(chunkSize).parse(file);
+
+        // assertion
+        assertThat(result.getHeader(), is(expected.getHeader()));
+        assertThat(result.getNumberOfRows(), is(expected.getNumberOfRows()));
+        for (int row = 0; row < expected.getNumberOfRows(); row++) {
+            for (String column : expected.getHeader()) {
+                assertThat(result.getValue(row, column), is(expected.getValue(row, column)));
+            }
+            assertThat(result.getRows().get(row).getRowNumber(), is(row));
+        }
+    }
+
+    @Test
+    public void quoted_line_breaks_stay_in_one_value() throws IOException {
+        // execution
+        CSVModel result = parser(3).parse(csvFile(CSV));
+
+        // assertion
+        assertThat(result.getNumberOfRows(), is(5));
+        assertThat(result.getValue(0, "comment"), is("multi\nline \"quoted\" value"));
+        assertThat(result.getValue(4, "name"), is("a,b,c"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a,b\n1,2\n5\n6\n", "a,b\r\n1,2\r\n\r\n3,4\r\n5\r\n", "a,b\r1,\"x\ry\"\r3,4\r5\r"})
+    public void wrong_number_of_fields_is_reported_like_the_sequential_reader(String content) throws IOException {
+        // setup
+        File file = csvFile(content);
+        IOException expected = assertThrows(IOException.class, () -> readSequential(file));
+
+        // execution
+        IOException exception = assertThrows(IOException.class, () -> parser(6).parse(file));
+
+        // assertion
+        assertThat(expected.getMessage(), is("Failed to read " + file + ": " + exception.getMessage()));
+    }
+
+    @Test
+    public void file_length_ends_behind_the_last_complete_record() throws IOException {
+        // setup
+        File file = csvFile("a,b\n1,2\n3,\"still\nwritten");
+
+        // execution
+        CSVModel result = parser(6).parse(file);
+
+        // assertion
+        assertThat(result.getFileLength(), is((long) "a,b\n1,2\n".length()));
+        assertThat(result.isLastRowIncomplete(), is(true));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private ChunkedCSVParser parser(long chunkSize) {
+        return new ChunkedCSVParser(CsvReader.builder().fieldSeparator(',').quoteCharacter('"'),
+                defaultPreferences(), StandardCharsets.UTF_8, 4, chunkSize);
+    }
+
+    private CSVModel readSequential(File file) throws IOException {
+        CSVFileReader reader = new CSVFileReader();
+        reader.setFileEncoding(StandardCharsets.UTF_8.name());
+        reader.setParallelLoad(false);
+        reader.read(file);
+        return reader.getContent();
+    }
+
+    private File csvFile(String content) throws IOException {
+        Path file = tempDir.resolve("test.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.CSVRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static ninja.javafx.smartcsv.preferences.Preferences.defaultPreferences;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * unit test for the journal of unsaved edits
+ */
+public class EditJournalTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String CSV = "id,name\n1,first\n2,second\n3,third\n";
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void replays_the_edits_up_to_a_record_that_was_not_written_completely() throws IOException {
+        // setup
+        File file = csvFile();
+        CSVModel edited = read(file);
+        EditJournal sut = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        sut.replay(edited);
+        edited.addChangeListener(sut);
+        int name = edited.getColumnIndex("name");
+        edited.getRows().get(1).set(name, "changed");
+        edited.getRows().remove(0);
+        sut.rowRemoved(0);
+        CSVRow added = edited.addRow();
+        sut.rowAdded();
+        added.set(edited.getColumnIndex("id"), "4");
+        added.set(name, "added");
+        added.set(name, null);
+        sut.close();
+        Files.write(EditJournal.journalOf(file), new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+        // execution
+        CSVModel replayed = read(file);
+        EditJournal journal = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        int records = journal.replay(replayed);
+        journal.close();
+
+        // assertion
+        assertThat(records, is(6));
+        assertThat(values(replayed), is(values(edited)));
+        assertThat(values(replayed), contains("2:changed", "3:third", "4:null"));
+    }
+
+    @Test
+    public void replays_the_edits_up_to_a_record_with_a_negative_length() throws IOException {
+        // assertion
+        assertThat(replayWithDamagedLength(-5), contains("1:changed", "2:second", "3:third"));
+    }
+
+    @Test
+    public void replays_the_edits_up_to_a_record_with_a_length_behind_the_end() throws IOException {
+        // assertion
+        assertThat(replayWithDamagedLength(Integer.MAX_VALUE), contains("1:changed", "2:second", "3:third"));
+    }
+
+    @Test
+    public void journal_of_a_changed_file_is_not_replayed() throws IOException {
+        // setup
+        File file = csvFile();
+        CSVModel model = read(file);
+        EditJournal sut = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        model.addChangeListener(sut);
+        model.getRows().get(0).set(model.getColumnIndex("name"), "changed");
+        sut.close();
+
+        // execution
+        Files.writeString(file.toPath(), CSV.replace("third", "other"));
+        EditJournal journal = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        int records = journal.replay(read(file));
+        journal.close();
+
+        // assertion
+        assertThat(records, is(0));
+    }
+
+    @Test
+    public void added_row_keeps_its_empty_values() throws IOException {
+        // setup
+        File file = csvFile();
+        CSVModel edited = read(file);
+        EditJournal sut = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        edited.addChangeListener(sut);
+        CSVRow added = edited.addRow();
+        sut.rowAdded();
+        for (String column : edited.getHeader()) {
+            added.set(edited.getColumnIndex(column), "");
+        }
+        sut.close();
+
+        // execution
+        CSVModel replayed = read(file);
+        EditJournal journal = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        journal.replay(replayed);
+        journal.close();
+
+        // assertion
+        assertThat(values(replayed), is(values(edited)));
+        assertThat(values(replayed).get(3), is(":"));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * journals one change and appends a value change, whose column name has the given length
+     */
+    private List<String> replayWithDamagedLength(int length) throws IOException {
+        File file = csvFile();
+        CSVModel edited = read(file);
+        EditJournal sut = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        edited.addChangeListener(sut);
+        edited.getRows().get(0).set(edited.getColumnIndex("name"), "changed");
+        sut.close();
+        Path journalFile = EditJournal.journalOf(file);
+        long journalSize = Files.size(journalFile);
+        ByteBuffer damaged = ByteBuffer.allocate(Byte.BYTES + 2 * Integer.BYTES + 4).put((byte) 1).putInt(0).putInt(length);
+        Files.write(journalFile, damaged.array(), StandardOpenOption.APPEND);
+
+        CSVModel replayed = read(file);
+        EditJournal journal = EditJournal.open(file, defaultPreferences(), StandardCharsets.UTF_8, false);
+        int records = journal.replay(replayed);
+        journal.close();
+
+        assertThat(records, is(1));
+        assertThat(Files.size(journalFile), is(journalSize));
+        return values(replayed);
+    }
+
+    private File csvFile() throws IOException {
+        Path file = tempDir.resolve("test.csv");
+        Files.writeString(file, CSV);
+        return file.toFile();
+    }
+
+    private CSVModel read(File file) throws IOException {
+        CSVFileReader reader = new CSVFileReader();
+        reader.setFileEncoding("UTF-8");
+        reader.read(file);
+        return reader.getContent();
+    }
+
+    private List<String> values(CSVModel model) {
+        int id = model.getColumnIndex("id");
+        int name = model.getColumnIndex("name");
+        return model.getRows().stream().map(row -> row.get(id) + ":" + row.get(name)).toList();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.preferences.Preferences;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ninja.javafx.smartcsv.preferences.Preferences.defaultPreferences;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * unit test for the persistent row index cache
+ */
+public class RowIndexCacheTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String CSV = "id,name\n1,first\n2,\"multi\nline\"\n3,third\n";
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void stored_index_is_loaded_for_unchanged_file() throws IOException {
+        // setup
+        File file = csvFile(CSV);
+        RowIndexCache sut = new RowIndexCache(tempDir.resolve("cache").toFile());
+        sut.store(file, defaultPreferences(), StandardCharsets.UTF_8, index(0, 8, 16, 33));
+
+        // execution
+        RowIndex result = sut.load(file, defaultPreferences(), StandardCharsets.UTF_8);
+
+        // assertion
+        assertThat(result.size(), is(4));
+        assertThat(result.start(2), is(16L));
+        assertThat(result.end(3), is((long) CSV.length()));
+    }
+
+    @Test
+    public void index_of_changed_file_is_not_loaded() throws IOException {
+        // setup
+        File file = csvFile(CSV);
+        long lastModified = file.lastModified();
+        RowIndexCache sut = new RowIndexCache(tempDir.resolve("cache").toFile());
+        sut.store(file, defaultPreferences(), StandardCharsets.UTF_8, index(0, 8, 16, 33));
+
+        // execution
+        Files.writeString(file.toPath(), CSV.replace('1', '9'));
+        file.setLastModified(lastModified);
+
+        // assertion
+        assertThat(sut.load(file, defaultPreferences(), StandardCharsets.UTF_8), is(nullValue()));
+    }
+
+    @Test
+    public void index_of_other_dialect_is_not_loaded() throws IOException {
+        // setup
+        File file = csvFile(CSV);
+        RowIndexCache sut = new RowIndexCache(tempDir.resolve("cache").toFile());
+        sut.store(file, defaultPreferences(), StandardCharsets.UTF_8, index(0, 8, 16, 33));
+
+        // assertion
+        assertThat(sut.load(file, new Preferences('\'', ';', "\n", true), StandardCharsets.UTF_8), is(nullValue()));
+        assertThat(sut.load(file, defaultPreferences(), StandardCharsets.ISO_8859_1), is(nullValue()));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private File csvFile(String content) throws IOException {
+        Path file = tempDir.resolve("test.csv");
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    private RowIndex index(long... starts) {
+        RowIndex index = new RowIndex();
+        index.addAll(starts);
+        index.setEnd(CSV.length());
+        return index;
+    }
+}
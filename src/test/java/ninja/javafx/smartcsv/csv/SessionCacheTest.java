@@ -0,0 +1,147 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.csv;
+
+import ninja.javafx.smartcsv.ProgressMonitor;
+import ninja.javafx.smartcsv.csv.SessionCache.Session;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.fx.table.model.StorageMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ninja.javafx.smartcsv.preferences.Preferences.defaultPreferences;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * unit test for the session snapshots of csv files
+ */
+public class SessionCacheTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int ROWS = 3000;
+
+    @TempDir
+    Path tempDir;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private SessionCache sut;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void restored_session_is_written_back_like_the_edited_model() throws IOException {
+        for (StorageMode storageMode : StorageMode.values()) {
+            // setup
+            sut = new SessionCache(tempDir.resolve("cache").toFile());
+            File file = csvFile();
+            CSVModel edited = read(file, storageMode, null);
+            edited.getRows().get(1).set(edited.getColumnIndex("city"), "Zürich, CH");
+            edited.getRows().remove(2);
+            sut.store(file, defaultPreferences(), StandardCharsets.UTF_8, new Session(edited, true), ProgressMonitor.NONE);
+
+            // execution
+            CSVFileReader reader = reader(storageMode);
+            reader.setSessionCache(sut);
+            reader.read(file);
+
+            // assertion
+            assertThat(reader.hasUnsavedChanges(), is(true));
+            assertThat(reader.getContent().getStorageMode(), is(storageMode));
+            assertThat(reader.getContent().hasByteOrderMark(), is(true));
+            assertThat(write(reader.getContent(), "restored.csv"), is(write(edited, "edited.csv")));
+        }
+    }
+
+    @Test
+    public void session_of_changed_file_is_not_restored() throws IOException {
+        // setup
+        sut = new SessionCache(tempDir.resolve("cache").toFile());
+        File file = csvFile();
+        sut.store(file, defaultPreferences(), StandardCharsets.UTF_8,
+                new Session(read(file, StorageMode.HEAP, null), true), ProgressMonitor.NONE);
+
+        // execution
+        Files.writeString(file.toPath(), "id,name\n1,first\n");
+
+        // assertion
+        assertThat(sut.load(file, defaultPreferences(), StandardCharsets.UTF_8, StorageMode.HEAP), is(nullValue()));
+        assertThat(read(file, StorageMode.HEAP, sut).getNumberOfRows(), is(1));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * the ids have too many distinct values for a dictionary, the cities do not
+     */
+    private File csvFile() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFid,city,note\n");
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(row).append(',').append(row % 3 == 0 ? "Köln" : "Berlin").append(',')
+                    .append(row % 7 == 0 ? "\"multi\nline, \"\"quoted\"\"\"" : "").append('\n');
+        }
+        Path file = tempDir.resolve("test.csv");
+        Files.writeString(file, csv);
+        return file.toFile();
+    }
+
+    private CSVFileReader reader(StorageMode storageMode) {
+        CSVFileReader reader = new CSVFileReader();
+        reader.setFileEncoding("UTF-8");
+        reader.setStorageMode(storageMode);
+        return reader;
+    }
+
+    private CSVModel read(File file, StorageMode storageMode, SessionCache sessionCache) throws IOException {
+        CSVFileReader reader = reader(storageMode);
+        reader.setSessionCache(sessionCache);
+        reader.read(file);
+        return reader.getContent();
+    }
+
+    private byte[] write(CSVModel model, String name) throws IOException {
+        CSVFileWriter writer = new CSVFileWriter();
+        writer.setFileEncoding("UTF-8");
+        writer.setContent(model);
+        File file = tempDir.resolve(name).toFile();
+        writer.write(file);
+        return Files.readAllBytes(file.toPath());
+    }
+}
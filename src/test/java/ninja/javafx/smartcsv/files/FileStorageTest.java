@@ -2,13 +2,16 @@ package ninja.javafx.smartcsv.files;
 
 import ninja.javafx.smartcsv.FileReader;
 import ninja.javafx.smartcsv.FileWriter;
+import ninja.javafx.smartcsv.ProgressMonitor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.concurrent.CancellationException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class FileStorageTest {
@@ -78,6 +81,24 @@ public class FileStorageTest {
         assertThat("file changed is reset", sut.isFileChanged(), equalTo(false));
     }
 
+    @Test
+    public void load_ShouldKeepContentWhenCancelled() throws Exception {
+        // setup
+        final File file = new File("file");
+        sut.setFile(file);
+        sut.setContent("OLD CONTENT");
+        final ProgressMonitor monitor = mock(ProgressMonitor.class);
+        doThrow(new CancellationException()).when(reader).read(file);
+
+        // execution
+        assertThrows(CancellationException.class, () -> sut.load(monitor));
+
+        // assertion
+        verify(reader).setProgressMonitor(monitor);
+        verify(reader).setProgressMonitor(ProgressMonitor.NONE);
+        assertThat("content is kept", sut.getContent(), equalTo("OLD CONTENT"));
+    }
+
     @Test
     public void save_ShouldWriteContentToWriter() throws Exception {
         // setup
@@ -26,8 +26,15 @@
 
 package ninja.javafx.smartcsv.fx.table.model;
 
+import ninja.javafx.smartcsv.validation.ValidationError;
+import ninja.javafx.smartcsv.validation.configuration.Constraints;
+import ninja.javafx.smartcsv.validation.configuration.Field;
+import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
@@ -75,6 +82,163 @@ public class CSVModelTest {
         assertThat(sut.getRows().indexOf(newRow), is(newRow.getRowNumber()));
     }
 
+    @Test
+    public void rows_behind_a_removed_row_are_renumbered() {
+        // setup
+        sut.addRow();
+        CSVRow second = sut.addRow();
+        CSVRow third = sut.addRow();
+
+        // execution
+        sut.getRows().remove(0);
+
+        // assertion
+        assertThat(second.getRowNumber(), is(0));
+        assertThat(third.getRowNumber(), is(1));
+    }
+
+    @Test
+    public void informs_change_listeners_about_changed_cells() {
+        // setup
+        setup_model_with_one_row_one_column_and_value();
+        List<String> changes = new ArrayList<>();
+        sut.addChangeListener((row, column, oldValue, newValue) ->
+                changes.add(row.getColumnName(column) + ":" + oldValue + "->" + newValue));
+
+        // execution
+        sut.getRows().get(0).getValue(TESTHEADER).setValue("changed");
+        sut.getRows().get(0).getValue(TESTHEADER).setValue("changed");
+
+        // assertion
+        assertThat(changes, contains(TESTHEADER + ":" + TESTVALUE + "->changed"));
+    }
+
+    @Test
+    public void appended_rows_are_validated_against_the_old_rows_of_unique_columns() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        sut.addRow(new String[] {"a"});
+        sut.addRow(new String[] {"b"});
+        sut.setValidationConfiguration(uniqueColumn(TESTHEADER));
+
+        // execution
+        sut.appendRows(List.<String[]>of(new String[] {"c"}, new String[] {"a"}));
+
+        // assertion
+        assertThat(sut.getRows().size(), is(4));
+        assertThat(sut.getRows().get(0).getValidationError(0), is(notNullValue()));
+        assertThat(sut.getRows().get(1).getValidationError(0), is(nullValue()));
+        assertThat(sut.getRows().get(2).getValidationError(0), is(nullValue()));
+        assertThat(sut.getRows().get(3).getValidationError(0), is(notNullValue()));
+        assertThat(sut.getValidationError(), hasSize(2));
+    }
+
+    @Test
+    public void appended_rows_only_revalidate_old_rows_whose_value_was_unique_before() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        sut.setValidationConfiguration(uniqueColumn(TESTHEADER));
+        sut.appendRows(List.<String[]>of(new String[] {"a"}, new String[] {"a"}, new String[] {""}));
+        ValidationError errorOfDuplicate = sut.getRows().get(0).getValidationError(0);
+        ValidationError errorOfEmptyValue = ValidationError.withLineNumber(2).column(TESTHEADER);
+        sut.getRows().get(2).setValidationError(0, errorOfEmptyValue);
+
+        // execution
+        sut.appendRows(List.<String[]>of(new String[] {"a"}, new String[] {""}));
+
+        // assertion
+        assertThat(errorOfDuplicate, is(notNullValue()));
+        assertThat(sut.getRows().get(0).getValidationError(0), is(sameInstance(errorOfDuplicate)));
+        assertThat(sut.getRows().get(2).getValidationError(0), is(sameInstance(errorOfEmptyValue)));
+        assertThat(sut.getRows().get(3).getValidationError(0), is(notNullValue()));
+        assertThat(sut.getRows().get(4).getValidationError(0), is(nullValue()));
+    }
+
+    @Test
+    public void edited_cell_of_unique_column_patches_the_errors_of_the_rows_with_the_old_and_new_value() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        sut.addRow(new String[] {"a"});
+        sut.addRow(new String[] {"b"});
+        sut.addRow(new String[] {"c"});
+        sut.setRevalidationExecutor(Runnable::run);
+        sut.setValidationConfiguration(uniqueColumn(TESTHEADER));
+        sut.getRows().get(2).getValue(TESTHEADER).setValue("a");
+
+        // execution
+        sut.getRows().get(0).getValue(TESTHEADER).setValue("b");
+
+        // assertion
+        assertThat(sut.getRows().get(0).getValidationError(0), is(notNullValue()));
+        assertThat(sut.getRows().get(1).getValidationError(0), is(notNullValue()));
+        assertThat(sut.getRows().get(2).getValidationError(0), is(nullValue()));
+        assertThat(sut.getValidationError(), contains(
+                sut.getRows().get(0).getValidationError(0),
+                sut.getRows().get(1).getValidationError(0)));
+    }
+
+    @Test
+    public void value_index_follows_edited_and_removed_rows() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        sut.addRow(new String[] {"a"});
+        sut.addRow(new String[] {"b"});
+        sut.addRow(new String[] {"a"});
+        ValueIndex valueIndex = sut.getValueIndex(0);
+
+        // execution
+        sut.getRows().remove(0);
+        sut.getRows().get(0).getValue(TESTHEADER).setValue("a");
+        sut.addRow(new String[] {"b"});
+
+        // assertion
+        assertThat(valueIndex.linesOf("a"), is(new int[] {0, 1}));
+        assertThat(valueIndex.linesOf("b"), is(new int[] {2}));
+    }
+
+    @Test
+    public void removed_ranges_of_rows_renumber_the_rows_and_value_index_behind_them() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        for (String value : new String[] {"a", "b", "c", "d", "e", "f", "a"}) {
+            sut.addRow(new String[] {value});
+        }
+        ValueIndex valueIndex = sut.getValueIndex(0);
+
+        // execution
+        sut.removeRows(List.of(5, 1, 2, 4));
+
+        // assertion
+        assertThat(sut.getNumberOfRows(), is(3));
+        assertThat(sut.getValue(1, TESTHEADER), is("d"));
+        assertThat(sut.getRows().get(2).getRowNumber(), is(2));
+        assertThat(valueIndex.linesOf("a"), is(new int[] {0, 2}));
+        assertThat(valueIndex.linesOf("d"), is(new int[] {1}));
+    }
+
+    @Test
+    public void removed_rows_release_their_values_and_validation_errors() {
+        // setup
+        sut.setHeader(new String[] {TESTHEADER});
+        List<CSVRow> rows = new ArrayList<>();
+        for (String value : new String[] {"a", "b", "c"}) {
+            CSVRow row = sut.addRow(new String[] {value});
+            row.setValidationError(0, ValidationError.withLineNumber(row.getRowNumber()).column(TESTHEADER));
+            rows.add(row);
+        }
+
+        // execution
+        sut.removeRows(List.of(0, 1));
+
+        // assertion
+        assertThat(rows.get(0).get(0), is(nullValue()));
+        assertThat(rows.get(0).getValidationError(0), is(nullValue()));
+        assertThat(rows.get(1).get(0), is(nullValue()));
+        assertThat(rows.get(1).getValidationError(0), is(nullValue()));
+        assertThat(sut.getValue(0, TESTHEADER), is("c"));
+        assertThat(sut.getRows().get(0).getValidationError(0), is(notNullValue()));
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // private methods
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -84,4 +248,15 @@ public class CSVModelTest {
         sut.addRow().addValue(TESTHEADER, TESTVALUE);
     }
 
+    private ValidationConfiguration uniqueColumn(String column) {
+        Constraints constraints = new Constraints();
+        constraints.setUnique(true);
+        Field field = new Field();
+        field.setName(column);
+        field.setConstraints(constraints);
+        ValidationConfiguration configuration = new ValidationConfiguration();
+        configuration.setFields(new Field[] {field});
+        return configuration;
+    }
+
 }
\ No newline at end of file
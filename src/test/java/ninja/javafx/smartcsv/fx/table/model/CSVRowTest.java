@@ -3,8 +3,8 @@ package ninja.javafx.smartcsv.fx.table.model;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 
 
 /**
@@ -33,8 +33,8 @@ public class CSVRowTest {
         sut.addValue(COLUMN, VALUE);
 
         // assertion
-        assertThat(sut.getColumns(), hasKey(COLUMN));
-        assertThat(sut.getColumns().get(COLUMN).get().getValue(), is(VALUE));
+        assertThat(sut.getValue(COLUMN), notNullValue());
+        assertThat(sut.getValue(COLUMN).getValue(), is(VALUE));
     }
 
 
@@ -0,0 +1,105 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static ninja.javafx.smartcsv.Measurement.best;
+import static ninja.javafx.smartcsv.Measurement.usedHeap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * compares the single change channel of the model with the listener per cell
+ * that the model registered before
+ */
+@Tag("benchmark")
+public class CellChangeBenchmark {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int ROWS = 1_000_000;
+    private static final String[] HEADER = {"id", "name", "country", "amount", "date"};
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void load_with_single_change_channel() {
+        long heap = usedHeap();
+        var result = best("model with change channel", 3, this::loadModel);
+        long retained = usedHeap() - heap;
+        System.out.printf("%-40s %10.1f bytes per cell%n", "retained by the model", (double) retained / (ROWS * HEADER.length));
+
+        assertThat(result.value().getNumberOfRows(), is(ROWS));
+    }
+
+    @Test
+    public void listener_per_cell() {
+        int cells = ROWS * HEADER.length;
+        StringProperty[] properties = new StringProperty[cells];
+        for (int i = 0; i < cells; i++) {
+            properties[i] = new SimpleStringProperty("value");
+        }
+        long heap = usedHeap();
+        var result = best("listener per cell", 1, () -> {
+            for (int i = 0; i < cells; i++) {
+                int row = i / HEADER.length;
+                String column = HEADER[i % HEADER.length];
+                StringProperty property = properties[i];
+                // the listener the model used to register for every value
+                property.addListener(observable -> valueChanged(row, column, property.get()));
+            }
+            return properties;
+        });
+        long retained = usedHeap() - heap;
+        System.out.printf("%-40s %10.1f bytes per cell%n", "retained by the listeners", (double) retained / cells);
+
+        assertThat(result.value().length, is(cells));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private CSVModel loadModel() {
+        CSVModel model = new CSVModel();
+        model.setHeader(HEADER);
+        for (int i = 0; i < ROWS; i++) {
+            model.addRow(new String[] {Integer.toString(i), "customer " + i, "DE", Integer.toString(i % 10_000), "2024-01-15"});
+        }
+        return model;
+    }
+
+    private void valueChanged(int row, String column, String value) {
+        // only needed as target of the listeners
+    }
+}
@@ -0,0 +1,188 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import ninja.javafx.smartcsv.validation.ValidationError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * unit test for the column oriented cell store
+ */
+public class CellStoreTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final String MULTIBYTE = "Grüße € 😀";
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private CellStore sut;
+
+    @BeforeEach
+    public void initialize() {
+        sut = new CellStore("a", "b");
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void resolves_column_names_to_indices() {
+        // execution
+        int index = sut.addColumn("c");
+
+        // assertion
+        assertThat(index, is(2));
+        assertThat(sut.addColumn("a"), is(0));
+        assertThat(sut.getColumnIndices(new String[] {"c", "x", "b"}), is(new int[] {2, -1, 1}));
+    }
+
+    @Test
+    public void stores_values_by_slot_and_column() {
+        // setup
+        int first = sut.addSlot();
+        int second = sut.addSlot();
+
+        // execution
+        sut.setAll(first, new String[] {"", MULTIBYTE});
+        sut.set(second, 0, "value");
+
+        // assertion
+        assertThat(sut.get(first, 0), is(""));
+        assertThat(sut.get(first, 1), is(MULTIBYTE));
+        assertThat(sut.get(second, 0), is("value"));
+        assertThat(sut.get(second, 1), is(nullValue()));
+    }
+
+    @Test
+    public void overwrites_values() {
+        // setup
+        int slot = sut.addSlot();
+        sut.set(slot, 0, "old");
+
+        // execution
+        sut.set(slot, 0, "new");
+
+        // assertion
+        assertThat(sut.get(slot, 0), is("new"));
+    }
+
+    @Test
+    public void cleared_slot_has_no_values_and_no_validation_errors() {
+        // setup
+        int slot = sut.addSlot();
+        int other = sut.addSlot();
+        sut.setAll(slot, new String[] {"a", "b"});
+        sut.setAll(other, new String[] {"c", "d"});
+        sut.setValidationError(slot, 1, ValidationError.withLineNumber(slot).column("b"));
+        sut.setValidationError(other, 1, ValidationError.withLineNumber(other).column("b"));
+
+        // execution
+        sut.clearSlot(slot);
+
+        // assertion
+        assertThat(sut.get(slot, 0), is(nullValue()));
+        assertThat(sut.get(slot, 1), is(nullValue()));
+        assertThat(sut.getValidationError(slot, 1), is(nullValue()));
+        assertThat(sut.get(other, 0), is("c"));
+        assertThat(sut.getValidationError(other, 1), is(notNullValue()));
+    }
+
+    @Test
+    public void stores_values_larger_than_a_block() {
+        // setup
+        String large = "x".repeat(3 << 20);
+        int[] slots = {sut.addSlot(), sut.addSlot(), sut.addSlot()};
+
+        // execution
+        sut.set(slots[0], 0, "before");
+        sut.set(slots[1], 0, large);
+        sut.set(slots[2], 0, "after");
+
+        // assertion
+        assertThat(sut.get(slots[0], 0), is("before"));
+        assertThat(sut.get(slots[1], 0), is(large));
+        assertThat(sut.get(slots[2], 0), is("after"));
+    }
+
+    @Test
+    public void stores_many_values() {
+        // setup
+        for (int i = 0; i < 200_000; i++) {
+            sut.set(sut.addSlot(), 0, "value " + i);
+        }
+
+        // assertion
+        assertThat(sut.get(0, 0), is("value 0"));
+        assertThat(sut.get(199_999, 0), is("value 199999"));
+        assertThat(sut.memoryUsage(), lessThan(200_000L * 32));
+    }
+
+    @Test
+    public void keeps_columns_with_few_distinct_values_dictionary_encoded() {
+        // execution
+        for (int i = 0; i < 10_000; i++) {
+            sut.setAll(sut.addSlot(), new String[] {"status " + i % 50, "id " + i});
+        }
+
+        // assertion
+        assertThat(sut.getDictionary(0), notNullValue());
+        assertThat(sut.getDictionary(0).size(), is(50));
+        assertThat(sut.getCode(49, 0), is(sut.getDictionary(0).codeOf("status 49")));
+        assertThat(sut.getDictionary(1), nullValue());
+        assertThat(sut.get(9_999, 0), is("status 49"));
+        assertThat(sut.get(9_999, 1), is("id 9999"));
+        assertThat(sut.get(0, 1), is("id 0"));
+    }
+
+    @Test
+    public void stores_values_off_heap() {
+        // setup
+        sut = new CellStore(StorageMode.OFF_HEAP, "id");
+        String large = MULTIBYTE.repeat(200_000);
+
+        // execution
+        for (int i = 0; i < 10_000; i++) {
+            sut.set(sut.addSlot(), 0, i % 2 == 0 ? "id " + i : MULTIBYTE + i);
+        }
+        sut.set(1, 0, large);
+        sut.set(3, 0, null);
+
+        // assertion
+        assertThat(sut.get(0, 0), is("id 0"));
+        assertThat(sut.get(1, 0), is(large));
+        assertThat(sut.get(3, 0), is(nullValue()));
+        assertThat(sut.get(9_999, 0), is(MULTIBYTE + 9_999));
+        assertThat(sut.offHeapUsage(), greaterThan(0L));
+    }
+}
@@ -0,0 +1,255 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * unit test for the paged row list of a csv model
+ */
+public class PagedRowListTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int NUMBER_OF_ROWS = PagedRowList.PAGE_SIZE * (PagedRowList.MAX_CACHED_PAGES + 2) + 5;
+    private static final String[] HEADER = {"id", "name"};
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private CSVModel sut;
+
+    @BeforeEach
+    public void initialize() {
+        sut = new CSVModel(new GeneratedRowSource());
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void model_has_header_and_number_of_rows_of_source() {
+        // assertion
+        assertThat(sut.getHeader(), is(HEADER));
+        assertThat(sut.getNumberOfRows(), is(NUMBER_OF_ROWS));
+    }
+
+    @Test
+    public void reads_values_of_all_pages() {
+        // assertion
+        assertThat(sut.getValue(0, "id"), is("0"));
+        assertThat(sut.getValue(PagedRowList.PAGE_SIZE, "name"), is("name " + PagedRowList.PAGE_SIZE));
+        assertThat(sut.getValue(NUMBER_OF_ROWS - 1, "id"), is(Integer.toString(NUMBER_OF_ROWS - 1)));
+    }
+
+    @Test
+    public void keeps_changed_values_when_pages_are_evicted() {
+        // setup
+        sut.getRows().get(1).getValue("name").setValue("changed");
+
+        // execution
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+
+        // assertion
+        assertThat(sut.getValue(1, "name"), is("changed"));
+    }
+
+    @Test
+    public void keeps_changed_values_of_rows_held_from_an_evicted_page() {
+        // setup
+        CSVRow heldRow = sut.getRows().get(1);
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+
+        // execution
+        heldRow.getValue("name").setValue("changed");
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+
+        // assertion
+        assertThat(sut.getValue(1, "name"), is("changed"));
+        assertThat(sut.getRows().get(1).get(sut.getColumnIndex("name")), is("changed"));
+    }
+
+    @Test
+    public void keeps_changed_values_of_rows_held_from_an_evicted_copy_of_a_changed_page() {
+        // setup
+        CSVRow heldRow = sut.getRows().get(1);
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+        sut.getRows().get(2).getValue("name").setValue("changed");
+
+        // execution
+        heldRow.getValue("name").setValue("changed too");
+
+        // assertion
+        assertThat(sut.getValue(1, "name"), is("changed too"));
+        assertThat(sut.getValue(2, "name"), is("changed"));
+    }
+
+    @Test
+    public void rows_of_the_reloaded_page_show_changes_of_rows_held_from_an_evicted_copy() {
+        // setup
+        CSVRow heldRow = sut.getRows().get(1);
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+        CSVRow shownRow = sut.getRows().get(1);
+
+        // execution
+        heldRow.getValue("name").setValue("changed");
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            sut.getRows().get(row);
+        }
+
+        // assertion
+        assertThat(sut.getRows().get(1), is(sameInstance(shownRow)));
+        assertThat(sut.getRows().get(1).get(sut.getColumnIndex("name")), is("changed"));
+        assertThat(shownRow.get(sut.getColumnIndex("name")), is("changed"));
+    }
+
+    @Test
+    public void removed_rows_are_skipped_and_row_numbers_follow() {
+        // execution
+        sut.getRows().remove(PagedRowList.PAGE_SIZE);
+        sut.getRows().remove(0);
+
+        // assertion
+        assertThat(sut.getNumberOfRows(), is(NUMBER_OF_ROWS - 2));
+        assertThat(sut.getValue(0, "id"), is("1"));
+        assertThat(sut.getValue(PagedRowList.PAGE_SIZE - 1, "id"), is(Integer.toString(PagedRowList.PAGE_SIZE + 1)));
+        assertThat(sut.getRows().get(PagedRowList.PAGE_SIZE - 1).getRowNumber(), is(PagedRowList.PAGE_SIZE - 1));
+    }
+
+    @Test
+    public void removed_ranges_of_rows_are_skipped_and_appended_rows_are_renumbered() {
+        // setup
+        CSVRow newRow = sut.addRow(new String[] {"new", "row"});
+
+        // execution
+        sut.removeRows(List.of(1, 2, 3, PagedRowList.PAGE_SIZE));
+
+        // assertion
+        assertThat(sut.getNumberOfRows(), is(NUMBER_OF_ROWS - 3));
+        assertThat(sut.getValue(1, "id"), is("4"));
+        assertThat(sut.getRows().get(PagedRowList.PAGE_SIZE - 3).getRowNumber(), is(PagedRowList.PAGE_SIZE - 3));
+        assertThat(sut.getValue(PagedRowList.PAGE_SIZE - 3, "id"), is(Integer.toString(PagedRowList.PAGE_SIZE + 1)));
+        assertThat(newRow.getRowNumber(), is(NUMBER_OF_ROWS - 4));
+    }
+
+    @Test
+    public void adjacent_removed_rows_are_removed_as_one_range() {
+        // setup
+        PagedRowList rows = (PagedRowList) sut.getRows();
+        int modCount = rows.getModCount();
+
+        // execution
+        sut.removeRows(List.of(1, 2, 3));
+
+        // assertion
+        assertThat(rows.getModCount(), is(modCount + 1));
+        assertThat(sut.getValue(1, "id"), is("4"));
+    }
+
+    @Test
+    public void removed_range_of_rows_is_removed_in_one_step() {
+        // setup
+        PagedRowList rows = (PagedRowList) sut.getRows();
+        int modCount = rows.getModCount();
+
+        // execution
+        rows.remove(PagedRowList.PAGE_SIZE, PagedRowList.PAGE_SIZE + 3);
+
+        // assertion
+        assertThat(rows.getModCount(), is(modCount + 1));
+        assertThat(sut.getNumberOfRows(), is(NUMBER_OF_ROWS - 3));
+        assertThat(sut.getValue(PagedRowList.PAGE_SIZE, "id"), is(Integer.toString(PagedRowList.PAGE_SIZE + 3)));
+    }
+
+    @Test
+    public void new_rows_are_appended_behind_the_stored_rows() {
+        // execution
+        sut.getRows().remove(0);
+        CSVRow newRow = sut.addRow();
+
+        // assertion
+        assertThat(sut.getRows().get(NUMBER_OF_ROWS - 1), is(sameInstance(newRow)));
+        assertThat(newRow.getRowNumber(), is(NUMBER_OF_ROWS - 1));
+    }
+
+    @Test
+    public void rows_cannot_be_inserted_between_stored_rows() {
+        // assertion
+        assertThrows(UnsupportedOperationException.class, () -> sut.getRows().add(0, new CSVRow()));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private classes
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class GeneratedRowSource implements RowSource {
+
+        @Override
+        public File getFile() {
+            return new File("generated.csv");
+        }
+
+        @Override
+        public String[] getHeader() {
+            return HEADER;
+        }
+
+        @Override
+        public int getNumberOfRows() {
+            return NUMBER_OF_ROWS;
+        }
+
+        @Override
+        public List<String[]> read(int firstRow, int numberOfRows) {
+            List<String[]> rows = new ArrayList<>();
+            for (int row = firstRow; row < firstRow + numberOfRows; row++) {
+                rows.add(new String[] {Integer.toString(row), "name " + row});
+            }
+            return rows;
+        }
+    }
+}
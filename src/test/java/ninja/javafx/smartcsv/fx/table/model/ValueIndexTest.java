@@ -0,0 +1,109 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.fx.table.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * unit test for the index of the lines of the values of a column
+ */
+public class ValueIndexTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private ValueIndex sut = new ValueIndex();
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void appended_lines_are_added_in_order() {
+        // execution
+        for (int lineNumber = 0; lineNumber < 100; lineNumber++) {
+            sut.add(lineNumber % 2 == 0 ? "even" : "odd", lineNumber);
+        }
+
+        // assertion
+        assertThat(sut.linesOf("even").length, is(50));
+        assertThat(sut.linesOf("odd")[49], is(99));
+        assertThat(sut.countLinesBefore("even", 10), is(5));
+    }
+
+    @Test
+    public void lines_that_were_read_do_not_change_when_lines_are_appended() {
+        // setup
+        sut.add("a", 0);
+        sut.add("a", 1);
+        sut.add("a", 2);
+        int[] lines = sut.linesOf("a");
+
+        // execution
+        sut.add("a", 3);
+        sut.remove("a", 1);
+        sut.add("a", 4);
+
+        // assertion
+        assertThat(lines, is(new int[] {0, 1, 2}));
+        assertThat(sut.linesOf("a"), is(new int[] {0, 2, 3, 4}));
+    }
+
+    @Test
+    public void lines_in_the_middle_are_inserted_in_order() {
+        // setup
+        sut.add("a", 0);
+        sut.add("a", 4);
+
+        // execution
+        sut.add("a", 2);
+        sut.add("a", 2);
+
+        // assertion
+        assertThat(sut.linesOf("a"), is(new int[] {0, 2, 4}));
+    }
+
+    @Test
+    public void lines_behind_removed_lines_are_moved() {
+        // setup
+        sut.add("a", 0);
+        sut.add("a", 3);
+        sut.add("a", 5);
+        sut.add("b", 2);
+
+        // execution
+        sut.shiftLines(2, 2, 0);
+        sut.add("a", 4);
+
+        // assertion
+        assertThat(sut.linesOf("a"), is(new int[] {0, 3, 4}));
+        assertThat(sut.linesOf("b"), is(new int[0]));
+        assertThat(sut.countLinesBefore("b", 10), is(0));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+                                                                                                                    
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+  
+*/
+
+package ninja.javafx.smartcsv.validation;
+
+import com.google.gson.GsonBuilder;
+import ninja.javafx.smartcsv.fx.table.model.CSVModel;
+import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * unit test for the service that validates all rows of a model
+ */
+public class RevalidationServiceTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int NUMBER_OF_ROWS = RevalidationService.CHUNK_SIZE * 3 + 5;
+    private static final String CONFIG =
+            "{\"fields\": [ { \"name\": \"id\", \"type\" : \"integer\" }, " +
+            "{ \"name\": \"name\", \"type\" : \"string\", \"constraints\": { \"pattern\": \"[a-z]*\" } } ]}";
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // subject under test
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private RevalidationService sut;
+    private CSVModel model;
+
+    @BeforeEach
+    public void initialize() {
+        model = new CSVModel();
+        model.setHeader(new String[] {"id", "name"});
+        List<String[]> records = new ArrayList<>();
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            String id = row % 97 == 0 ? "no number " + row : Integer.toString(row);
+            String name = row % 1000 == 0 ? "Name" : "name";
+            records.add(new String[] {id, name});
+        }
+        model.appendRows(records);
+
+        ValidationConfiguration configuration = new GsonBuilder().create().fromJson(CONFIG, ValidationConfiguration.class);
+        sut = new RevalidationService();
+        sut.setValidator(new Validator(configuration, model));
+        sut.setRows(model.getRows());
+        sut.setHeader(model.getHeader());
+    }
+
+    @AfterEach
+    public void dispose() {
+        sut.dispose();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void parallel_validation_finds_the_errors_of_the_sequential_validation_in_line_order() {
+        // setup
+        sut.setParallelism(1);
+        List<String> sequentialErrors = describe(sut.validate(() -> false));
+
+        // execution
+        sut.setParallelism(4);
+        List<String> parallelErrors = describe(sut.validate(() -> false));
+
+        // assertion
+        assertThat(sequentialErrors, hasSize(NUMBER_OF_ROWS / 97 + 1 + NUMBER_OF_ROWS / 1000 + 1));
+        assertThat(parallelErrors, is(sequentialErrors));
+    }
+
+    @Test
+    public void validates_again_after_the_service_is_disposed() {
+        // setup
+        sut.setParallelism(4);
+        List<String> errors = describe(sut.validate(() -> false));
+
+        // execution
+        sut.dispose();
+
+        // assertion
+        assertThat(describe(sut.validate(() -> false)), is(errors));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private List<String> describe(List<ValidationError> errors) {
+        List<String> descriptions = new ArrayList<>();
+        for (ValidationError error : errors) {
+            descriptions.add(error.getLineNumber() + " " + error.getColumn() + " " + error.getMessages());
+        }
+        return descriptions;
+    }
+}
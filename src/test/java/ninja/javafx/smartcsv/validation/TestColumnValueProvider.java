@@ -11,6 +11,16 @@ public class TestColumnValueProvider implements ColumnValueProvider {
         return null;
     }
 
+    @Override
+    public int getColumnIndex(String column) {
+        return -1;
+    }
+
+    @Override
+    public String getValue(int row, int column) {
+        return null;
+    }
+
     @Override
     public int getNumberOfRows() {
         return 0;
@@ -0,0 +1,194 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.validation;
+
+import ninja.javafx.smartcsv.validation.checker.DateValidation;
+import ninja.javafx.smartcsv.validation.checker.DoubleValidation;
+import ninja.javafx.smartcsv.validation.checker.IntegerValidation;
+import ninja.javafx.smartcsv.validation.checker.MaxLengthValidation;
+import ninja.javafx.smartcsv.validation.checker.MinLengthValidation;
+import ninja.javafx.smartcsv.validation.checker.NotEmptyValidation;
+import ninja.javafx.smartcsv.validation.checker.Validation;
+import ninja.javafx.smartcsv.validation.checker.ValueOfValidation;
+import ninja.javafx.smartcsv.validation.configuration.Constraints;
+import ninja.javafx.smartcsv.validation.configuration.Field;
+import ninja.javafx.smartcsv.validation.configuration.Type;
+import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ninja.javafx.smartcsv.Measurement.best;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * compares the compiled rules of the columns with the lookup of the rules of every cell
+ * by the column name, that the validator did before
+ */
+@Tag("benchmark")
+public class ValidatorBenchmark {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int ROWS = 1_000_000;
+    private static final int RUNS = 5;
+    private static final String[] HEADER = {"id", "name", "amount", "status", "date", "comment"};
+    private static final List<String> STATUS = List.of("open", "paid", "cancelled");
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void validation_throughput() {
+        // setup
+        String[][] rows = rows();
+        Validator validator = new Validator(configuration(), new TestColumnValueProvider());
+        Map<String, Map<Validation.Type, Validation>> columnValidationMap = columnValidationMap();
+
+        // execution
+        var interpreted = best("rules looked up per cell", RUNS, () -> interpreted(columnValidationMap, rows));
+        var compiled = best("compiled rules per column", RUNS, () -> compiled(validator, rows));
+        System.out.printf("%-40s %10.2f x%n", "speedup", interpreted.millis() / compiled.millis());
+
+        // assertion
+        assertThat(compiled.value(), is(interpreted.value()));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * the way the validator used to work: the rules are looked up by the column name for every cell
+     * and every rule is asked if it can check the value
+     */
+    private int interpreted(Map<String, Map<Validation.Type, Validation>> columnValidationMap, String[][] rows) {
+        int errors = 0;
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < HEADER.length; column++) {
+                String value = rows[row][column];
+                ValidationError error = ValidationError.withLineNumber(row).column(HEADER[column]);
+                Map<Validation.Type, Validation> validationMap = columnValidationMap.get(HEADER[column]);
+                if (validationMap != null) {
+                    for (Validation validation : validationMap.values()) {
+                        if (validation.canBeChecked(value)) {
+                            validation.check(row, value, error);
+                        }
+                    }
+                }
+                if (!error.isEmpty()) {
+                    errors++;
+                }
+            }
+        }
+        return errors;
+    }
+
+    private int compiled(Validator validator, String[][] rows) {
+        ColumnValidator[] columnValidators = new ColumnValidator[HEADER.length];
+        for (int column = 0; column < HEADER.length; column++) {
+            columnValidators[column] = validator.getColumnValidator(HEADER[column]);
+        }
+        int errors = 0;
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < HEADER.length; column++) {
+                if (columnValidators[column].isValid(row, rows[row][column]) != null) {
+                    errors++;
+                }
+            }
+        }
+        return errors;
+    }
+
+    private String[][] rows() {
+        String[][] rows = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new String[] {
+                    i % 1000 == 0 ? "x" + i : Integer.toString(i),
+                    "customer " + i,
+                    (i % 10_000) + "." + (i % 100),
+                    i % 500 == 0 ? "unknown" : STATUS.get(i % STATUS.size()),
+                    "2024-01-" + (10 + i % 20),
+                    i % 10 == 0 ? "comment " + i : ""};
+        }
+        return rows;
+    }
+
+    private ValidationConfiguration configuration() {
+        ValidationConfiguration configuration = new ValidationConfiguration();
+        configuration.setFields(new Field[] {
+                field("id", Type.INTEGER, constraints(true, null, null, null)),
+                field("name", Type.STRING, constraints(null, 2, 40, null)),
+                field("amount", Type.NUMBER, null),
+                field("status", Type.STRING, constraints(null, null, null, STATUS)),
+                field("date", Type.DATE, null),
+                field("comment", Type.STRING, constraints(null, null, 200, null))});
+        return configuration;
+    }
+
+    /**
+     * the same rules the validator creates for the configuration
+     */
+    private Map<String, Map<Validation.Type, Validation>> columnValidationMap() {
+        Map<String, Map<Validation.Type, Validation>> columnValidationMap = new HashMap<>();
+        add(columnValidationMap, "id", new IntegerValidation());
+        add(columnValidationMap, "id", new NotEmptyValidation());
+        add(columnValidationMap, "name", new MinLengthValidation(2));
+        add(columnValidationMap, "name", new MaxLengthValidation(40));
+        add(columnValidationMap, "amount", new DoubleValidation());
+        add(columnValidationMap, "status", new ValueOfValidation(STATUS));
+        add(columnValidationMap, "date", new DateValidation("yyyy-MM-dd"));
+        add(columnValidationMap, "comment", new MaxLengthValidation(200));
+        return columnValidationMap;
+    }
+
+    private void add(Map<String, Map<Validation.Type, Validation>> columnValidationMap, String column, Validation validation) {
+        columnValidationMap.computeIfAbsent(column, c -> new HashMap<>()).put(validation.getType(), validation);
+    }
+
+    private Field field(String name, Type type, Constraints constraints) {
+        Field field = new Field();
+        field.setName(name);
+        field.setType(type);
+        field.setConstraints(constraints);
+        return field;
+    }
+
+    private Constraints constraints(Boolean required, Integer minLength, Integer maxLength, List<String> enumeration) {
+        Constraints constraints = new Constraints();
+        constraints.setRequired(required);
+        constraints.setMinLength(minLength);
+        constraints.setMaxLength(maxLength);
+        constraints.setEnumeration(enumeration);
+        return constraints;
+    }
+}
@@ -3,6 +3,7 @@ package ninja.javafx.smartcsv.validation;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import ninja.javafx.smartcsv.validation.configuration.ValidationConfiguration;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -15,6 +16,7 @@ import static java.util.stream.Collectors.joining;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * unit test for validator
@@ -45,6 +47,74 @@ public class ValidatorTest {
         }
     }
 
+    @Test
+    public void empty_value_is_valid_if_no_rule_requires_a_value() {
+        // setup
+        Validator sut = validator(
+                "{\"fields\": [ { \"name\": \"column\", \"type\" : \"integer\", " +
+                "\"constraints\": { \"minLength\": 2, \"pattern\": \"[0-9]*\" } } ]}");
+
+        // execution
+        ValidationError emptyResult = sut.isValid(0, "column", "");
+        ValidationError nullResult = sut.isValid(0, "column", null);
+
+        // assertion
+        assertThat(emptyResult, is(nullValue()));
+        assertThat(nullResult, is(nullValue()));
+    }
+
+    @Test
+    public void empty_value_is_only_checked_by_the_rules_that_require_a_value() {
+        // setup
+        Validator sut = validator(
+                "{\"fields\": [ { \"name\": \"column\", \"type\" : \"integer\", " +
+                "\"constraints\": { \"required\": true, \"minLength\": 2 } } ]}");
+
+        // execution
+        ValidationError result = sut.isValid(3, "column", "");
+
+        // assertion
+        assertThat(result.getLineNumber(), is(3));
+        assertThat(result.getColumn(), is("column"));
+        assertThat(result.getMessages(), contains(new ValidationMessage("validation.message.not.empty")));
+    }
+
+    @Test
+    public void messages_of_all_broken_rules_are_in_the_order_of_the_configuration() {
+        // setup
+        Validator sut = validator(
+                "{\"fields\": [ { \"name\": \"column\", \"type\" : \"integer\", " +
+                "\"groovy\": \"value.contains('1') ? 'true' : 'no 1 inside'\", " +
+                "\"constraints\": { \"minLength\": 3, \"pattern\": \"[0-9]*\", \"enum\": [7, 8] } } ]}");
+
+        // execution
+        ValidationError result = sut.isValid(5, "column", "a");
+
+        // assertion
+        assertThat(result.getLineNumber(), is(5));
+        assertThat(result.getColumn(), is("column"));
+        assertThat(result.getMessages(), contains(
+                new ValidationMessage("validation.message.integer"),
+                new ValidationMessage("no 1 inside"),
+                new ValidationMessage("validation.message.min.length", "3"),
+                new ValidationMessage("validation.message.regexp", "[0-9]*"),
+                new ValidationMessage("validation.message.value.of", "a", "7, 8")));
+    }
+
+    @Test
+    public void valid_value_has_no_error() {
+        // setup
+        Validator sut = validator(
+                "{\"fields\": [ { \"name\": \"column\", \"type\" : \"integer\", " +
+                "\"constraints\": { \"minLength\": 3, \"pattern\": \"[0-9]*\" } } ]}");
+
+        // execution
+        ValidationError result = sut.isValid(0, "column", "123");
+
+        // assertion
+        assertThat(result, is(nullValue()));
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // parameters for tests
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -124,4 +194,12 @@ public class ValidatorTest {
         json += "}]}";
         return json;
     }
-}
\ No newline at end of file
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private Validator validator(String config) {
+        ValidationConfiguration validationConfiguration = new GsonBuilder().create().fromJson(config, ValidationConfiguration.class);
+        return new Validator(validationConfiguration, new TestColumnValueProvider());
+    }
+}
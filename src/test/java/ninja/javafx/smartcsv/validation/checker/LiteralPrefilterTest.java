@@ -0,0 +1,88 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.validation.checker;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * unit test for the literal prefilter of the regexp validation
+ */
+public class LiteralPrefilterTest {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @ParameterizedTest
+    @MethodSource("patterns")
+    public void rejects_only_values_that_do_not_match(String regexp, String value, boolean expectedRejected) {
+        // setup
+        LiteralPrefilter sut = LiteralPrefilter.of(regexp);
+
+        // execution
+        boolean rejected = sut.rejects(value);
+
+        // assertion
+        assertThat(rejected, is(expectedRejected));
+        if (rejected || sut.isLiteral()) {
+            assertThat(rejected, is(!Pattern.matches(regexp, value)));
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // parameters for tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public static Stream<Arguments> patterns() {
+        return Stream.of(
+                Arguments.of("INV-[0-9]{6}", "INV-123456", false),
+                Arguments.of("INV-[0-9]{6}", "XNV-123456", true),
+                Arguments.of("[a-z]+\\.csv", "data.csv", false),
+                Arguments.of("[a-z]+\\.csv", "data.txt", true),
+                Arguments.of(".*ERROR.*", "an ERROR here", false),
+                Arguments.of(".*ERROR.*", "all fine", true),
+                Arguments.of("abc", "abc", false),
+                Arguments.of("abc", "abd", true),
+                Arguments.of("ab?c", "ac", false),
+                Arguments.of("ab{2}c", "abbc", false),
+                Arguments.of("^id-\\d+$", "id-42", false),
+                Arguments.of("^id-\\d+$", "ix-42", true),
+                Arguments.of("x[]a]y", "x]y", false),
+                Arguments.of("a(b|c)d", "acd", false),
+                Arguments.of("a(b|c)d", "acx", true),
+                Arguments.of("a|b", "b", false),
+                Arguments.of("\\x41B", "AB", false),
+                Arguments.of("(?i)abc", "ABC", false)
+        );
+    }
+}
@@ -0,0 +1,116 @@
+/*
+   The MIT License (MIT)
+   -----------------------------------------------------------------------------
+
+   Copyright (c) 2015-2021 javafx.ninja <info@javafx.ninja>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in
+   all copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+   THE SOFTWARE.
+
+*/
+
+package ninja.javafx.smartcsv.validation.checker;
+
+import ninja.javafx.smartcsv.validation.ValidationError;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static ninja.javafx.smartcsv.Measurement.best;
+import static org.apache.commons.validator.GenericValidator.matchRegexp;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * compares the regexp validation that compiled the pattern for every value with the compiled pattern,
+ * with and without the literal prefilter
+ */
+@Tag("benchmark")
+public class RegExpValidationBenchmark {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // constants
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final int CELLS = 10_000_000;
+    private static final int DISTINCT_VALUES = 4096;
+    private static final String[] PATTERNS = {"INV-[0-9]{6}", "[a-z]+_[0-9]+\\.csv", ".*ERROR.*", "[A-Z]{2}[0-9]{2}[A-Z0-9]{12,30}"};
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // tests
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Test
+    public void regexp_throughput() {
+        String[] values = values();
+        for (String regexp : PATTERNS) {
+            // execution
+            var perValue = best(regexp + ", compiled per value", 1, () -> countPerValue(regexp, values));
+            var compiled = best(regexp + ", compiled once", 3, () -> count(new RegExpValidation(regexp, false), values));
+            var prefiltered = best(regexp + ", prefiltered", 3, () -> count(new RegExpValidation(regexp), values));
+            System.out.printf("%-40s %10.2f x compiled, %6.2f x prefiltered%n", regexp + ", speedup",
+                    perValue.millis() / compiled.millis(), perValue.millis() / prefiltered.millis());
+
+            // assertion
+            assertThat(compiled.value(), is(perValue.value()));
+            assertThat(prefiltered.value(), is(perValue.value()));
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // private methods
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * the way the validation used to work: commons validator compiles the pattern for every value
+     */
+    private int countPerValue(String regexp, String[] values) {
+        int invalid = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (!matchRegexp(values[cell % DISTINCT_VALUES], regexp)) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    private int count(RegExpValidation validation, String[] values) {
+        int invalid = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            ValidationError error = ValidationError.withLineNumber(cell);
+            validation.check(cell, values[cell % DISTINCT_VALUES], error);
+            if (!error.isEmpty()) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * a mix of invoice numbers, file names, log lines and ibans
+     */
+    private String[] values() {
+        String[] values = new String[DISTINCT_VALUES];
+        for (int i = 0; i < DISTINCT_VALUES; i++) {
+            values[i] = switch (i % 4) {
+                case 0 -> String.format("INV-%06d", i * 37);
+                case 1 -> "export_" + i + (i % 3 == 0 ? ".txt" : ".csv");
+                case 2 -> "2024-01-15 12:00:00 " + (i % 5 == 0 ? "ERROR" : "INFO") + " request " + i + " finished";
+                default -> String.format("DE%02d%018d", i % 100, i * 7919L);
+            };
+        }
+        return values;
+    }
+}